@@ -0,0 +1,196 @@
+package minesweeper.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Bridge from the benchmarks to the game engine.
+ * The engine classes live in the default package, which code in a named package can not import,
+ * and JMH refuses benchmarks in the default package. So every engine call goes through a
+ * MethodHandle held in a static final field, which the JIT inlines like a direct call.
+ * Game objects are passed around as plain Objects.
+ */
+final class Engine {
+    static final Object EMPTY_NODE = enumConstant("MineSweeperMessages", "EMPTY_NODE");
+    static final Object GAME_WON = enumConstant("MineSweeperMessages", "GAME_WON");
+
+    private static final MethodHandle NEW_GAME = constructor("MineSweeper", int.class, int.class, int.class, long.class);
+    private static final MethodHandle START_GAME = method("MineSweeper", "startGame", void.class, int.class, int.class);
+    private static final MethodHandle REVEAL_NODE = method("MineSweeper", "revealNode", engineClass("MineSweeperMessages"), int.class, int.class);
+    private static final MethodHandle FLAG_NODE = method("MineSweeper", "flagNode", engineClass("MineSweeperMessages"), int.class, int.class);
+    private static final MethodHandle GET_NODE = method("MineSweeper", "getNode", engineClass("MineSweeperMessages"), int.class, int.class);
+    private static final MethodHandle BOMBS_NEARBY = method("MineSweeper", "howManyBombsNearbyTile", int.class, int.class, int.class);
+    private static final MethodHandle GAME_STATUS = method("MineSweeper", "getGameStatus", engineClass("MineSweeperMessages"));
+    private static final MethodHandle APPLY_MOVES = method("MineSweeper", "applyMoves", int.class, int[].class, int.class, int[].class);
+    private static final MethodHandle NEW_SOLVER = constructor("MineSweeperSolver", engineClass("MineSweeper"));
+    private static final MethodHandle RESET_SOLVER = method("MineSweeperSolver", "reset", void.class, engineClass("MineSweeper"));
+    private static final MethodHandle SOLVE = method("MineSweeperSolver", "solve", engineClass("MineSweeperMessages"));
+
+    private Engine() {
+    }
+
+    static Object newGame(int rows, int cols, int mineCount, long seed) {
+        try {
+            return (Object) NEW_GAME.invokeExact(rows, cols, mineCount, seed);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void startGame(Object game, int row, int col) {
+        try {
+            START_GAME.invokeExact(game, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object revealNode(Object game, int row, int col) {
+        try {
+            return (Object) REVEAL_NODE.invokeExact(game, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object flagNode(Object game, int row, int col) {
+        try {
+            return (Object) FLAG_NODE.invokeExact(game, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object getNode(Object game, int row, int col) {
+        try {
+            return (Object) GET_NODE.invokeExact(game, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int howManyBombsNearbyTile(Object game, int row, int col) {
+        try {
+            return (int) BOMBS_NEARBY.invokeExact(game, row, col);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object getGameStatus(Object game) {
+        try {
+            return (Object) GAME_STATUS.invokeExact(game);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int applyMoves(Object game, int[] moves, int count, int[] results) {
+        try {
+            return (int) APPLY_MOVES.invokeExact(game, moves, count, results);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newSolver(Object game) {
+        try {
+            return (Object) NEW_SOLVER.invokeExact(game);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void resetSolver(Object solver, Object game) {
+        try {
+            RESET_SOLVER.invokeExact(solver, game);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object solve(Object solver) {
+        try {
+            return (Object) SOLVE.invokeExact(solver);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Works out the mine count for a square board of the given density,
+     * leaving room for the 3x3 starting area.
+     */
+    static int mineCount(int size, double density) {
+        return Math.min((int) (size * size * density), size * size - 9);
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(t);
+    }
+
+    private static Class<?> engineClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError("Engine class " + name + " is not on the classpath");
+        }
+    }
+
+    private static Object enumConstant(String type, String name) {
+        for (Object constant : engineClass(type).getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(name)) {
+                return constant;
+            }
+        }
+        throw new ExceptionInInitializerError("No constant " + type + "." + name);
+    }
+
+    /**
+     * Erases engine classes (the default package) in a parameter list to Object, JDK types are kept.
+     */
+    private static Class<?>[] erase(Class<?>[] parameters) {
+        Class<?>[] erased = parameters.clone();
+        for (int i = 0; i < erased.length; i++) {
+            if (erased[i].getPackageName().isEmpty()) {
+                erased[i] = Object.class;
+            }
+        }
+        return erased;
+    }
+
+    /**
+     * Looks up a constructor and erases its type to (erased parameters)Object.
+     */
+    private static MethodHandle constructor(String type, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findConstructor(engineClass(type), MethodType.methodType(void.class, parameters));
+            return handle.asType(MethodType.methodType(Object.class, erase(parameters)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Looks up an instance method and erases its receiver and reference types to Object.
+     */
+    private static MethodHandle method(String type, String name, Class<?> returnType, Class<?>... parameters) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup()
+                    .findVirtual(engineClass(type), name, MethodType.methodType(returnType, parameters));
+            Class<?> erasedReturn = returnType.isPrimitive() ? returnType : Object.class;
+            MethodType erased = MethodType.methodType(erasedReturn, erase(parameters)).insertParameterTypes(0, Object.class);
+            return handle.asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of MineSweeper.startGame: clearing the grid, placing mines with their counts and the
+ * opening flood fill. The same seeded board is made every time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"9", "30", "100", "1000"})
+    public int size;
+
+    @Param({"0.1", "0.2", "0.3"})
+    public double density;
+
+    @Param({"42"})
+    public long seed;
+
+    private Object game;
+
+    @Setup
+    public void setUp() {
+        game = Engine.newGame(size, size, Engine.mineCount(size, density), seed);
+    }
+
+    @Benchmark
+    public Object startGame() {
+        Engine.startGame(game, size / 2, size / 2);
+        return game;
+    }
+}
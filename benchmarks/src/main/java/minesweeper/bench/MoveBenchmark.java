@@ -0,0 +1,255 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of single moves: revealing a numbered cell, a large flood fill cascade, toggling a flag,
+ * and the reveal that wins the game. The numbered cells are also revealed as one applyMoves batch.
+ * Reveals change the board, so those benchmarks are timed as single shots: every iteration is one
+ * call on a freshly started seeded board, and the setup before it is not measured. Flagging
+ * toggles back and is timed as an average over many calls on one board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+    static final int SINGLE_REVEALS = 64;
+    // single shots per run, enough for the reveal and flood fill loops to be compiled before measuring
+    static final int WARMUP_SHOTS = 500;
+    static final int MEASURED_SHOTS = 500;
+
+    /**
+     * A started board plus the cells each benchmark will click.
+     */
+    @State(Scope.Thread)
+    public static class Board {
+        @Param({"30", "100", "1000"})
+        public int size;
+
+        @Param({"0.1", "0.2"})
+        public double density;
+
+        @Param({"42"})
+        public long seed;
+
+        Object game;
+        int[] numberedCells; // hidden safe cells next to a mine, packed as row * size + col
+        int[] revealMoves; // the same cells packed as applyMoves reveals
+        int[] moveResults;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            game = Engine.newGame(size, size, Engine.mineCount(size, density), seed);
+            Engine.startGame(game, size / 2, size / 2);
+            numberedCells = new int[SINGLE_REVEALS];
+            int found = 0;
+            for (int row = 0; row < size && found < SINGLE_REVEALS; row++) {
+                for (int col = 0; col < size && found < SINGLE_REVEALS; col++) {
+                    if (Engine.getNode(game, row, col) == Engine.EMPTY_NODE
+                            && Engine.howManyBombsNearbyTile(game, row, col) > 0) {
+                        numberedCells[found++] = row * size + col;
+                    }
+                }
+            }
+            if (found < SINGLE_REVEALS) {
+                numberedCells = java.util.Arrays.copyOf(numberedCells, found);
+            }
+            revealMoves = new int[found];
+            for (int i = 0; i < found; i++) {
+                revealMoves[i] = numberedCells[i] << 1; // reveal action is 0
+            }
+            moveResults = new int[found];
+        }
+    }
+
+    /**
+     * A started board and the hidden empty cell that opens the largest region when clicked.
+     * 10% mines is close to the point where empty regions join up, so some regions are very large.
+     */
+    @State(Scope.Thread)
+    public static class CascadeBoard {
+        @Param({"100", "1000"})
+        public int size;
+
+        @Param({"42"})
+        public long seed;
+
+        Object game;
+        int cascadeRow;
+        int cascadeCol;
+        int cascadeSize; // number of empty cells in the chosen region
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            game = Engine.newGame(size, size, Engine.mineCount(size, 0.1), seed);
+            Engine.startGame(game, 0, 0);
+            boolean[] seen = new boolean[size * size];
+            int[] stack = new int[size * size];
+            cascadeSize = 0;
+            for (int start = 0; start < size * size; start++) {
+                if (seen[start] || !isHiddenEmpty(start / size, start % size)) {
+                    continue;
+                }
+                // walk the connected empty region from here
+                int regionSize = 0;
+                int top = 0;
+                stack[top++] = start;
+                seen[start] = true;
+                while (top > 0) {
+                    int cell = stack[--top];
+                    regionSize++;
+                    int row = cell / size;
+                    int col = cell % size;
+                    for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, size - 1); i++) {
+                        for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, size - 1); j++) {
+                            int next = i * size + j;
+                            if (!seen[next] && isHiddenEmpty(i, j)) {
+                                seen[next] = true;
+                                stack[top++] = next;
+                            }
+                        }
+                    }
+                }
+                if (regionSize > cascadeSize) {
+                    cascadeSize = regionSize;
+                    cascadeRow = start / size;
+                    cascadeCol = start % size;
+                }
+            }
+        }
+
+        private boolean isHiddenEmpty(int row, int col) {
+            return Engine.getNode(game, row, col) == Engine.EMPTY_NODE
+                    && Engine.howManyBombsNearbyTile(game, row, col) == 0;
+        }
+    }
+
+    /**
+     * A started board with every safe cell revealed except one numbered cell.
+     */
+    @State(Scope.Thread)
+    public static class AlmostWonBoard {
+        @Param({"30", "100", "1000"})
+        public int size;
+
+        @Param({"0.2"})
+        public double density;
+
+        @Param({"42"})
+        public long seed;
+
+        Object game;
+        int lastRow = -1;
+        int lastCol = -1;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            game = Engine.newGame(size, size, Engine.mineCount(size, density), seed);
+            Engine.startGame(game, size / 2, size / 2);
+            lastRow = -1;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    if (Engine.getNode(game, row, col) != Engine.EMPTY_NODE) {
+                        continue;
+                    }
+                    if (lastRow < 0 && Engine.howManyBombsNearbyTile(game, row, col) > 0) {
+                        lastRow = row; // keep this one for the measured click
+                        lastCol = col;
+                    } else {
+                        Engine.revealNode(game, row, col);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A started board and a safe cell that the first click left hidden, to flag and unflag.
+     */
+    @State(Scope.Thread)
+    public static class FlagBoard {
+        @Param({"30", "1000"})
+        public int size;
+
+        Object game;
+        int flagRow;
+        int flagCol;
+
+        @Setup
+        public void setUp() {
+            game = Engine.newGame(size, size, Engine.mineCount(size, 0.2), 42);
+            Engine.startGame(game, 0, 0);
+            // search back from the far corner, which the cascade from (0, 0) may have reached
+            for (int cell = size * size - 1; cell >= 0; cell--) {
+                if (Engine.getNode(game, cell / size, cell % size) == Engine.EMPTY_NODE) {
+                    flagRow = cell / size;
+                    flagCol = cell % size;
+                    return;
+                }
+            }
+            throw new IllegalStateException("First click revealed every safe cell, nothing left to flag");
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_SHOTS)
+    @Measurement(iterations = MEASURED_SHOTS)
+    @OperationsPerInvocation(SINGLE_REVEALS)
+    public void revealSingleCell(Board board, Blackhole blackhole) {
+        int[] cells = board.numberedCells;
+        for (int cell : cells) {
+            blackhole.consume(Engine.revealNode(board.game, cell / board.size, cell % board.size));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_SHOTS)
+    @Measurement(iterations = MEASURED_SHOTS)
+    @OperationsPerInvocation(SINGLE_REVEALS)
+    public int revealBatch(Board board) {
+        return Engine.applyMoves(board.game, board.revealMoves, board.revealMoves.length, board.moveResults);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_SHOTS)
+    @Measurement(iterations = MEASURED_SHOTS)
+    public Object revealCascade(CascadeBoard board) {
+        return Engine.revealNode(board.game, board.cascadeRow, board.cascadeCol);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_SHOTS)
+    @Measurement(iterations = MEASURED_SHOTS)
+    public Object revealWinningCell(AlmostWonBoard board) {
+        Engine.revealNode(board.game, board.lastRow, board.lastCol);
+        return Engine.getGameStatus(board.game);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public Object flagNode(FlagBoard board) {
+        Engine.flagNode(board.game, board.flagRow, board.flagCol);
+        return Engine.flagNode(board.game, board.flagRow, board.flagCol); // toggle back so every call does the same work
+    }
+}
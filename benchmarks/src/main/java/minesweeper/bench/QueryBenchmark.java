@@ -0,0 +1,55 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of reading the whole board one cell at a time with getNode and howManyBombsNearbyTile,
+ * the way a full repaint of GameView or printGrid does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    @Param({"9", "30", "100", "1000"})
+    public int size;
+
+    @Param({"0.1", "0.2"})
+    public double density;
+
+    @Param({"42"})
+    public long seed;
+
+    private Object game;
+
+    @Setup
+    public void setUp() {
+        game = Engine.newGame(size, size, Engine.mineCount(size, density), seed);
+        Engine.startGame(game, size / 2, size / 2);
+    }
+
+    @Benchmark
+    public void getNodeLoop(Blackhole blackhole) {
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                blackhole.consume(Engine.getNode(game, row, col));
+                blackhole.consume(Engine.howManyBombsNearbyTile(game, row, col));
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package minesweeper.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves per second of MineSweeperSolver on the standard board sizes.
+ * Every operation makes a fresh board from the next seed, starts it in the middle and solves it
+ * as far as logic goes, so the score includes generation (see GenerationBenchmark for that alone).
+ * One solver is reused the way a bot or a board checker would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+    // rows x cols - mines: beginner, intermediate, expert
+    @Param({"9x9-10", "16x16-40", "16x30-99"})
+    public String board;
+
+    private int rows;
+    private int cols;
+    private int mineCount;
+    private long seed;
+    private Object solver;
+
+    @Setup
+    public void setUp() {
+        String[] parts = board.split("[x-]");
+        rows = Integer.parseInt(parts[0]);
+        cols = Integer.parseInt(parts[1]);
+        mineCount = Integer.parseInt(parts[2]);
+        Object game = Engine.newGame(rows, cols, mineCount, seed);
+        Engine.startGame(game, rows / 2, cols / 2);
+        solver = Engine.newSolver(game);
+    }
+
+    @Benchmark
+    public Object generateAndSolve() {
+        Object game = Engine.newGame(rows, cols, mineCount, ++seed);
+        Engine.startGame(game, rows / 2, cols / 2);
+        Engine.resetSolver(solver, game);
+        return Engine.solve(solver);
+    }
+}
@@ -2,6 +2,8 @@ import java.util.Random;
 import java.util.Scanner;
 
 public class BaseTextProgram {
+    // one scanner for the whole program, a new one per read would lose the input the last one buffered
+    private static final Scanner INPUT = new Scanner(System.in);
 
     // method to see if a string is a positive number
     //
@@ -50,11 +52,10 @@ public class BaseTextProgram {
     // method to get input from user
     //
     public static String inputString() {
-        Scanner sc = new Scanner(System.in);
-        String text = sc.nextLine();
+        String text = INPUT.nextLine();
         while (text.isEmpty() || text.isBlank()) {
             print("Please do not give blank inputs");
-            text = sc.nextLine();
+            text = INPUT.nextLine();
         }
         return text;
     } // END inputString
@@ -0,0 +1,286 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Non-interactive version of the console game, for running scripts of moves on headless machines.
+ * A script holds any number of games. Each starts with a game line and is followed by its moves:
+ * <pre>
+ * # comments and blank lines are skipped
+ * game rows=16 cols=30 difficulty=HARD seed=42
+ * R H8 F A1
+ * R B2
+ * </pre>
+ * A game line takes rows, cols, then either mines or difficulty (EASY, MEDIUM or HARD, the default
+ * is EASY), and an optional seed. A move is R or F followed by a cell like the console's, e.g. A1
+ * or AB12, and a line may hold several moves. The first reveal starts the game.
+ * Nothing is drawn. One JSON line is written per game, with its status, counts, board code and the
+ * time on the game's clock, or the error that stopped it. Moves are read with one buffered reader
+ * and parsed straight from the line without regexes or substrings.
+ */
+public class BatchFrontEnd {
+    private final PrintStream out;
+    private int gameNumber;
+    // the game being played, null between games or after an error
+    private MineSweeper game;
+    private long seed;
+    private int movesApplied;
+    private int movesIgnored; // made after the game ended
+    private String error;
+    private int errorLine;
+
+    /**
+     * Constructor for BatchFrontEnd.
+     * @param out where to write the result lines
+     */
+    public BatchFrontEnd(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Command line entry, reached with Main --batch.
+     * Reads the script from the file given, or from standard input if there is none or it is -.
+     * @param args optional script path
+     * @throws IOException if the script can not be read
+     */
+    public static void main(String[] args) throws IOException {
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, StandardCharsets.UTF_8);
+        BatchFrontEnd batch = new BatchFrontEnd(out);
+        try {
+            if (args.length == 0 || args[0].equals("-")) {
+                batch.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), 1 << 16));
+            } else {
+                try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]))) {
+                    batch.run(reader);
+                }
+            }
+        } finally {
+            out.flush(); // the games already played are written even if reading fails
+        }
+    }
+
+    /**
+     * Plays every game in a script and writes their results.
+     * @param reader script to read
+     * @throws IOException if the script can not be read
+     */
+    public void run(BufferedReader reader) throws IOException {
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int start = skipSpaces(line, 0);
+            if (start == line.length() || line.charAt(start) == '#') {
+                continue;
+            }
+            if (line.startsWith("game", start) && (start + 4 == line.length() || line.charAt(start + 4) == ' ')) {
+                finishGame();
+                startGame(line, start + 4, lineNumber);
+            } else if (gameNumber == 0) {
+                gameNumber++;
+                fail("Moves before the first game line", lineNumber);
+            } else if (game != null) {
+                playMoves(line, start, lineNumber);
+            }
+        }
+        finishGame();
+    }
+
+    private void startGame(String line, int from, int lineNumber) {
+        gameNumber++;
+        movesApplied = 0;
+        movesIgnored = 0;
+        error = null;
+        int rows = -1;
+        int cols = -1;
+        int mines = -1;
+        MineSweeperDifficulty difficulty = MineSweeperDifficulty.EASY;
+        seed = System.nanoTime();
+        try {
+            for (int start = skipSpaces(line, from); start < line.length(); start = skipSpaces(line, start)) {
+                int end = tokenEnd(line, start);
+                int equals = line.indexOf('=', start);
+                if (equals < 0 || equals >= end) {
+                    throw new IllegalArgumentException("Expected name=value but got " + line.substring(start, end));
+                }
+                String value = line.substring(equals + 1, end);
+                switch (line.substring(start, equals)) {
+                    case "rows" -> rows = Integer.parseInt(value);
+                    case "cols" -> cols = Integer.parseInt(value);
+                    case "mines" -> mines = Integer.parseInt(value);
+                    case "difficulty" -> difficulty = MineSweeperDifficulty.valueOf(value.toUpperCase());
+                    case "seed" -> seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown game option " + line.substring(start, equals));
+                }
+                start = end;
+            }
+            if (rows < 1 || cols < 1) {
+                throw new IllegalArgumentException("Game needs rows and cols");
+            }
+            if (rows > BoardCode.MAX_SIZE || cols > BoardCode.MAX_SIZE) {
+                // same limit as the console game, a huge board would run out of memory and end the whole batch
+                throw new IllegalArgumentException("Games can have at most " + BoardCode.MAX_SIZE + " rows and cols");
+            }
+            if (mines < 0) {
+                // same as the console game, leaving room for the 3x3 starting area
+                mines = (int) ((long) rows * cols * difficulty.getBombPercentage());
+                mines = Math.min(mines, Math.max(0, rows * cols - 9));
+            }
+            game = new MineSweeper(rows, cols, mines, seed);
+        } catch (IllegalArgumentException e) { // NumberFormatException is one too
+            fail(e.getMessage(), lineNumber);
+        }
+    }
+
+    /**
+     * Applies every move on a line, stopping the game at the first bad one.
+     */
+    private void playMoves(String line, int start, int lineNumber) {
+        int length = line.length();
+        while (start < length) {
+            char action = Character.toUpperCase(line.charAt(start));
+            int cellStart = skipSpaces(line, start + 1);
+            if ((action != 'R' && action != 'F') || tokenEnd(line, start) != start + 1 || cellStart == length) {
+                fail("Expected a move like R A1 at column " + (start + 1), lineNumber);
+                return;
+            }
+            int cellEnd = tokenEnd(line, cellStart);
+            int index = parseCell(line, cellStart, cellEnd);
+            if (index < 0) {
+                fail("Bad or out of range cell " + line.substring(cellStart, cellEnd), lineNumber);
+                return;
+            }
+            try {
+                if (!applyMove(action, index)) {
+                    fail("Reveal a cell before flagging", lineNumber);
+                    return;
+                }
+            } catch (IllegalArgumentException e) { // e.g. too many mines to keep the first reveal clear
+                fail(e.getMessage(), lineNumber);
+                return;
+            }
+            start = skipSpaces(line, cellEnd);
+        }
+    }
+
+    /**
+     * Makes one move on the current game.
+     * @return false if the move can't be made yet, a flag before the game started
+     */
+    private boolean applyMove(char action, int index) {
+        int row = index / game.getCols();
+        int col = index % game.getCols();
+        if (!game.isStarted()) {
+            if (action == 'F') {
+                return false;
+            }
+            game.startGame(row, col);
+        } else if (game.getGameStatus() != MineSweeperMessages.GAME_ONGOING) {
+            movesIgnored++;
+            return true;
+        } else if (action == 'R') {
+            game.revealNode(row, col);
+        } else {
+            game.flagNode(row, col);
+        }
+        movesApplied++;
+        return true;
+    }
+
+    /**
+     * Reads a cell like A1 or ab12 without making any objects.
+     * @return row-major index of the cell, or -1 if it is malformed or off the board
+     */
+    private int parseCell(String line, int start, int end) {
+        int rows = game.getRows();
+        int cols = game.getCols();
+        int i = start;
+        int col = 0;
+        for (; i < end; i++) {
+            char c = (char) (line.charAt(i) & ~0x20); // upper case for letters
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+            if (col > cols) {
+                return -1; // also keeps long labels from overflowing
+            }
+        }
+        if (i == start || i == end) {
+            return -1;
+        }
+        int row = 0;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            row = row * 10 + (c - '0');
+            if (row > rows) {
+                return -1;
+            }
+        }
+        if (row == 0) {
+            return -1;
+        }
+        return (row - 1) * cols + col - 1;
+    }
+
+    private void fail(String message, int lineNumber) {
+        if (error == null) {
+            error = message;
+            errorLine = lineNumber;
+        }
+        game = null; // the rest of the game's moves are skipped
+    }
+
+    /**
+     * Writes the result line of the game just played, if there was one.
+     */
+    private void finishGame() {
+        if (gameNumber == 0) {
+            return;
+        }
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"game\":").append(gameNumber);
+        if (error != null) {
+            json.append(",\"error\":\"").append(error.replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append("\",\"line\":").append(errorLine).append('}');
+        } else {
+            boolean started = game.isStarted();
+            json.append(",\"rows\":").append(game.getRows()).append(",\"cols\":").append(game.getCols())
+                    .append(",\"mines\":").append(game.getMineCount()).append(",\"seed\":").append(seed)
+                    .append(",\"status\":\"").append(started ? game.getGameStatus().name() : "NOT_STARTED")
+                    .append("\",\"moves\":").append(movesApplied).append(",\"ignoredMoves\":").append(movesIgnored)
+                    .append(",\"safeLeft\":").append(game.getUnrevealedSafeNodes())
+                    .append(",\"flags\":").append(game.getNumberOfFlags())
+                    .append(",\"elapsedMillis\":").append(game.getClock().getElapsedMillis());
+            if (game.getBoardCode() != null) {
+                json.append(",\"boardCode\":\"").append(game.getBoardCode()).append('"');
+            }
+            json.append('}');
+        }
+        out.println(json);
+        game = null;
+        error = null;
+    }
+
+    private static int skipSpaces(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int tokenEnd(String line, int i) {
+        while (i < line.length() && !Character.isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,383 @@
+import java.util.Arrays;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * Board view that draws the grid onto a single Canvas instead of one Button per cell.
+ * Only the tiles inside the visible viewport are drawn, the rest of the board is reached with
+ * the scroll bars, the mouse wheel, or Ctrl + mouse wheel to zoom.
+ * Tiles are stamped from sprites that are rendered once per zoom level.
+ */
+public final class BoardCanvas extends BorderPane {
+    private static final double MIN_TILE_SIZE = 4;
+    private static final double MAX_TILE_SIZE = 48;
+    private static final double DEFAULT_TILE_SIZE = 26; // same as a 25px square plus the 1px gap
+    private static final double ZOOM_STEP = 1.1;
+
+    // sprite indexes, revealed numbers take the 9 slots after SPRITE_REVEALED
+    private static final int SPRITE_HIDDEN = 0;
+    private static final int SPRITE_FLAG = 1;
+    private static final int SPRITE_BOMB = 2;
+    private static final int SPRITE_REVEALED = 3;
+    private static final int SPRITE_COUNT = SPRITE_REVEALED + 9;
+
+    private final int rows;
+    private final int cols;
+    private final byte[] cells; // packed cell bytes as last reported by the game
+    private final Canvas canvas;
+    private final ScrollBar hBar;
+    private final ScrollBar vBar;
+    private final Image flagImage;
+    private final Image bombImage;
+    private final Image[] sprites;
+    private double tileSize;
+    private boolean interactive;
+    private CellClickHandler clickHandler;
+    private int highlightedCell = -1; // row-major index of the cell outlined as a hint, or -1
+    private boolean movingBars; // bars are being moved in code, which redraws once when done
+
+    /**
+     * Called when the player clicks a cell on the board.
+     */
+    public interface CellClickHandler {
+        void onCellClick(MouseButton button, int row, int col);
+    }
+
+    public BoardCanvas(int rows, int cols, Image flagImage, Image bombImage) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new byte[rows * cols];
+        this.flagImage = flagImage;
+        this.bombImage = bombImage;
+        this.sprites = new Image[SPRITE_COUNT];
+        this.tileSize = DEFAULT_TILE_SIZE;
+        this.interactive = true;
+
+        canvas = new Canvas();
+        Pane canvasHolder = new Pane(canvas);
+        canvasHolder.setMinSize(0, 0);
+        // canvas always matches the viewport, never the whole board
+        canvas.widthProperty().bind(canvasHolder.widthProperty());
+        canvas.heightProperty().bind(canvasHolder.heightProperty());
+        canvas.widthProperty().addListener((obs, oldValue, newValue) -> updateScrollBars());
+        canvas.heightProperty().addListener((obs, oldValue, newValue) -> updateScrollBars());
+
+        hBar = new ScrollBar();
+        vBar = new ScrollBar();
+        vBar.setOrientation(Orientation.VERTICAL);
+        hBar.valueProperty().addListener((obs, oldValue, newValue) -> barMoved());
+        vBar.valueProperty().addListener((obs, oldValue, newValue) -> barMoved());
+
+        canvas.setOnMouseClicked(this::handleMouseClicked);
+        canvas.setOnScroll(this::handleScroll);
+
+        setCenter(canvasHolder);
+        setBottom(hBar);
+        setRight(vBar);
+        setPrefSize(Math.min(cols * tileSize, 760), Math.min(rows * tileSize, 600));
+        buildSprites();
+    }
+
+    /**
+     * Set the handler that is called when a cell is clicked.
+     * @param clickHandler handler for cell clicks
+     */
+    public void setOnCellClick(CellClickHandler clickHandler) {
+        this.clickHandler = clickHandler;
+    }
+
+    /**
+     * Enable or disable clicking on cells. Scrolling and zooming keep working.
+     * @param interactive true to accept clicks
+     */
+    public void setInteractive(boolean interactive) {
+        this.interactive = interactive;
+    }
+
+    /**
+     * Outline one cell, e.g. to show a hint. Only one cell is outlined at a time.
+     * @param row row of the cell, or -1 to remove the outline
+     * @param col column of the cell
+     */
+    public void setHighlightedCell(int row, int col) {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        int previous = highlightedCell;
+        highlightedCell = row < 0 ? -1 : row * cols + col;
+        if (previous != -1) {
+            drawTile(gc, previous / cols, previous % cols);
+        }
+        if (highlightedCell != -1) {
+            drawTile(gc, row, col);
+        }
+    }
+
+    /**
+     * Apply the cells changed by the last move.
+     * Visible tiles are redrawn one by one, unless there are more changes than visible tiles.
+     * @param changes cells changed by the last move
+     */
+    public void applyChanges(CellChanges changes) {
+        for (int i = 0; i < changes.size(); i++) {
+            cells[changes.getIndex(i)] = (byte) changes.getCell(i);
+        }
+        int firstRow = firstVisibleRow();
+        int firstCol = firstVisibleCol();
+        int lastRow = lastVisibleRow();
+        int lastCol = lastVisibleCol();
+        long visibleTiles = (long) (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+        if (changes.size() > visibleTiles) {
+            redraw();
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int i = 0; i < changes.size(); i++) {
+            int row = changes.getRow(i);
+            int col = changes.getCol(i);
+            if (row >= firstRow && row <= lastRow && col >= firstCol && col <= lastCol) {
+                drawTile(gc, row, col);
+            }
+        }
+    }
+
+    /**
+     * Replace the whole board with the listed cells, every other cell is shown hidden.
+     * Used when a replay jumps to another move.
+     * @param changes every revealed or flagged cell, see MineSweeper.recordVisibleCells
+     */
+    public void showCells(CellChanges changes) {
+        Arrays.fill(cells, (byte) 0);
+        for (int i = 0; i < changes.size(); i++) {
+            cells[changes.getIndex(i)] = (byte) changes.getCell(i);
+        }
+        redraw();
+    }
+
+    /**
+     * Draw every tile inside the viewport.
+     */
+    public void redraw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        int lastRow = lastVisibleRow();
+        int lastCol = lastVisibleCol();
+        for (int row = firstVisibleRow(); row <= lastRow; row++) {
+            for (int col = firstVisibleCol(); col <= lastCol; col++) {
+                drawTile(gc, row, col);
+            }
+        }
+    }
+
+    /**
+     * Stamp the sprite for one cell onto the canvas.
+     * @param gc graphics context of the canvas
+     * @param row row of the cell
+     * @param col column of the cell
+     */
+    private void drawTile(GraphicsContext gc, int row, int col) {
+        double x = col * tileSize - hBar.getValue();
+        double y = row * tileSize - vBar.getValue();
+        gc.drawImage(sprites[spriteFor(cells[row * cols + col])], x, y);
+        if (row * cols + col == highlightedCell) {
+            gc.setStroke(Color.ORANGE);
+            gc.setLineWidth(2);
+            gc.strokeRect(x + 1, y + 1, tileSize - 3, tileSize - 3);
+        }
+    }
+
+    /**
+     * Pick the sprite that shows a packed cell.
+     * @param cell packed cell byte
+     * @return index into the sprite array
+     */
+    private int spriteFor(int cell) {
+        if ((cell & MineGrid.REVEALED_BIT) != 0) {
+            if ((cell & MineGrid.BOMB_BIT) != 0) {
+                return SPRITE_BOMB;
+            }
+            return SPRITE_REVEALED + (cell & MineGrid.COUNT_MASK);
+        }
+        if ((cell & MineGrid.FLAGGED_BIT) != 0) {
+            return SPRITE_FLAG;
+        }
+        return SPRITE_HIDDEN;
+    }
+
+    /**
+     * Render every sprite at the current tile size.
+     * Done once per zoom level so drawing a tile is a single image copy.
+     */
+    private void buildSprites() {
+        sprites[SPRITE_HIDDEN] = renderSprite(Color.web("#bdbdbd"), null, null, 0);
+        sprites[SPRITE_FLAG] = renderSprite(Color.web("#bdbdbd"), flagImage, null, 0);
+        sprites[SPRITE_BOMB] = renderSprite(Color.web("#f0f0f0"), bombImage, null, 0);
+        for (int number = 0; number <= 8; number++) {
+            String text = number == 0 ? null : String.valueOf(number);
+            sprites[SPRITE_REVEALED + number] = renderSprite(Color.web("#f0f0f0"), null, text, number);
+        }
+    }
+
+    /**
+     * Render a single tile to an image.
+     * @param background background colour of the tile
+     * @param image image to draw in the middle, or null
+     * @param text text to draw in the middle, or null
+     * @param number number of mines nearby, used for the text colour
+     * @return the rendered tile
+     */
+    private Image renderSprite(Color background, Image image, String text, int number) {
+        Canvas tile = new Canvas(tileSize, tileSize);
+        GraphicsContext gc = tile.getGraphicsContext2D();
+        double inner = tileSize - 1; // leave a 1px gap like the button grid
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, tileSize, tileSize);
+        gc.setFill(background);
+        gc.fillRect(0, 0, inner, inner);
+        if (tileSize >= 8) {
+            gc.setStroke(Color.GRAY);
+            gc.setLineWidth(1);
+            gc.strokeRect(0.5, 0.5, inner - 1, inner - 1);
+        }
+        if (image != null) {
+            double size = inner * 0.8;
+            gc.drawImage(image, (inner - size) / 2, (inner - size) / 2, size, size);
+        }
+        if (text != null && tileSize >= 8) {
+            gc.setFill(GameView.getColorForNumber(number));
+            gc.setFont(Font.font("Segoe UI", FontWeight.BOLD, inner * 0.75));
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.fillText(text, inner / 2, inner / 2);
+        }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return tile.snapshot(parameters, new WritableImage((int) Math.ceil(tileSize), (int) Math.ceil(tileSize)));
+    }
+
+    /**
+     * Hit-test a click and pass the cell on to the click handler.
+     * @param event mouse event from the canvas
+     */
+    private void handleMouseClicked(MouseEvent event) {
+        if (!interactive || clickHandler == null || !event.isStillSincePress()) {
+            return;
+        }
+        int col = (int) Math.floor((event.getX() + hBar.getValue()) / tileSize);
+        int row = (int) Math.floor((event.getY() + vBar.getValue()) / tileSize);
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return; // clicked in the empty space past the board
+        }
+        clickHandler.onCellClick(event.getButton(), row, col);
+    }
+
+    /**
+     * Scroll with the mouse wheel, or zoom around the pointer while Ctrl is held.
+     * @param event scroll event from the canvas
+     */
+    private void handleScroll(ScrollEvent event) {
+        if (event.isControlDown()) {
+            double factor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            double newSize = Math.max(MIN_TILE_SIZE, Math.min(MAX_TILE_SIZE, tileSize * factor));
+            newSize = Math.round(newSize);
+            if (newSize == tileSize) {
+                return;
+            }
+            // keep the cell under the pointer in place
+            double boardX = (event.getX() + hBar.getValue()) / tileSize;
+            double boardY = (event.getY() + vBar.getValue()) / tileSize;
+            tileSize = newSize;
+            buildSprites();
+            movingBars = true;
+            try {
+                fitScrollBars();
+                hBar.setValue(clamp(boardX * tileSize - event.getX(), hBar.getMax()));
+                vBar.setValue(clamp(boardY * tileSize - event.getY(), vBar.getMax()));
+            } finally {
+                movingBars = false;
+            }
+        } else {
+            movingBars = true;
+            try {
+                hBar.setValue(clamp(hBar.getValue() - event.getDeltaX(), hBar.getMax()));
+                vBar.setValue(clamp(vBar.getValue() - event.getDeltaY(), vBar.getMax()));
+            } finally {
+                movingBars = false;
+            }
+        }
+        redraw();
+        event.consume();
+    }
+
+    /**
+     * Redraw after the player dragged a scroll bar. Moves made in code redraw once themselves.
+     */
+    private void barMoved() {
+        if (!movingBars) {
+            redraw();
+        }
+    }
+
+    /**
+     * Resize the scroll bars to the board size and viewport, then redraw.
+     */
+    private void updateScrollBars() {
+        movingBars = true;
+        try {
+            fitScrollBars();
+        } finally {
+            movingBars = false;
+        }
+        redraw();
+    }
+
+    /**
+     * Resize the scroll bars to the board size and viewport without drawing anything.
+     */
+    private void fitScrollBars() {
+        double maxX = Math.max(0, cols * tileSize - canvas.getWidth());
+        double maxY = Math.max(0, rows * tileSize - canvas.getHeight());
+        hBar.setMax(maxX);
+        vBar.setMax(maxY);
+        hBar.setVisibleAmount(canvas.getWidth());
+        vBar.setVisibleAmount(canvas.getHeight());
+        hBar.setUnitIncrement(tileSize);
+        vBar.setUnitIncrement(tileSize);
+        hBar.setValue(clamp(hBar.getValue(), maxX));
+        vBar.setValue(clamp(vBar.getValue(), maxY));
+    }
+
+    private int firstVisibleRow() {
+        return (int) (vBar.getValue() / tileSize);
+    }
+
+    private int firstVisibleCol() {
+        return (int) (hBar.getValue() / tileSize);
+    }
+
+    private int lastVisibleRow() {
+        return Math.min(rows - 1, (int) ((vBar.getValue() + canvas.getHeight()) / tileSize));
+    }
+
+    private int lastVisibleCol() {
+        return Math.min(cols - 1, (int) ((hBar.getValue() + canvas.getWidth()) / tileSize));
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(max, value));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * A short code that describes a board completely: size, mine count, starting cell and seed.
+ * Written as rows x cols - mines - startRow . startCol - seed, e.g. "16x30-99-8.15-2bn3x0kfq6u1s",
+ * with the seed in base 36. Starting a MineSweeper from a code always gives the same board.
+ */
+public class BoardCode {
+    // largest rows or columns a parsed code may ask for, the same as the custom boards in the menu
+    public static final int MAX_SIZE = 1000;
+
+    private final int rows;
+    private final int cols;
+    private final int mineCount;
+    private final int startRow;
+    private final int startCol;
+    private final long seed;
+
+    public BoardCode(int rows, int cols, int mineCount, int startRow, int startCol, long seed) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        if (startRow < 0 || startRow >= rows || startCol < 0 || startCol >= cols) {
+            throw new IllegalArgumentException("Starting cell is outside the board");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.mineCount = mineCount;
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads a board code.
+     * @param code code in the form made by toString
+     * @return the board code
+     * @throws IllegalArgumentException if the code is not valid
+     */
+    public static BoardCode parse(String code) {
+        String[] parts = code.trim().toLowerCase().split("-");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Board code should look like 16x30-99-8.15-2bn3x0kfq6u1s");
+        }
+        String[] size = parts[0].split("x");
+        String[] start = parts[2].split("\\.");
+        if (size.length != 2 || start.length != 2) {
+            throw new IllegalArgumentException("Board code should look like 16x30-99-8.15-2bn3x0kfq6u1s");
+        }
+        try {
+            int rows = Integer.parseInt(size[0]);
+            int cols = Integer.parseInt(size[1]);
+            if (rows > MAX_SIZE || cols > MAX_SIZE) {
+                throw new IllegalArgumentException("Board codes can have at most " + MAX_SIZE + " rows and columns");
+            }
+            return new BoardCode(
+                    rows,
+                    cols,
+                    Integer.parseInt(parts[1]),
+                    Integer.parseInt(start[0]),
+                    Integer.parseInt(start[1]),
+                    Long.parseUnsignedLong(parts[3], 36));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Board code contains an invalid number", e);
+        }
+    }
+
+    /**
+     * Creates a game for this board and plays the first click.
+     * @return a started game
+     */
+    public MineSweeper startGame() {
+        MineSweeper game = new MineSweeper(rows, cols, mineCount, seed);
+        game.startGame(startRow, startCol);
+        return game;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    public int getStartRow() {
+        return startRow;
+    }
+
+    public int getStartCol() {
+        return startCol;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + cols + "-" + mineCount + "-" + startRow + "." + startCol + "-" + Long.toUnsignedString(seed, 36);
+    }
+}
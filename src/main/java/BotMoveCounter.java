@@ -0,0 +1,40 @@
+/**
+ * Moves and guesses made by a bot in one game.
+ * Plain fields, each simulation thread owns one and adds it to the shared totals when a game ends.
+ */
+public class BotMoveCounter {
+    private int moves;
+    private int guesses;
+
+    /**
+     * Counts moves that were certain, such as the solver's reveals and flags.
+     * @param count number of moves
+     */
+    public void countMoves(int count) {
+        moves += count;
+    }
+
+    /**
+     * Counts a reveal the bot could not be sure was safe. A guess is a move too.
+     */
+    public void countGuess() {
+        moves++;
+        guesses++;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * Clears the counts for the next game.
+     */
+    public void reset() {
+        moves = 0;
+        guesses = 0;
+    }
+}
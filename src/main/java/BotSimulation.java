@@ -0,0 +1,241 @@
+import java.io.PrintStream;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Plays huge numbers of headless games with a bot to measure its win rate.
+ * Games are handed out to one worker per core in blocks from an atomic counter. Each worker keeps
+ * its own bot and counts into plain fields, and only adds them to the shared LongAdders once per
+ * block, so the workers never wait on each other.
+ * Game number i always uses the same board seed and bot seed, both derived from the master seed,
+ * so the totals of a run can be repeated exactly whatever the thread count.
+ */
+public class BotSimulation {
+    private static final int BLOCK_SIZE = 256; // games a worker claims at a time
+
+    private final int rows;
+    private final int cols;
+    private final int mineCount;
+    private final Supplier<BotStrategy> botFactory;
+    private final int threads;
+
+    private final LongAdder gamesPlayed = new LongAdder();
+    private final LongAdder gamesWon = new LongAdder();
+    private final LongAdder totalMoves = new LongAdder();
+    private final LongAdder totalGuesses = new LongAdder();
+
+    /**
+     * Constructor for BotSimulation.
+     * @param rows number of rows of every board
+     * @param cols number of columns of every board
+     * @param mineCount number of mines on every board
+     * @param botFactory makes one bot per worker thread
+     * @param threads number of worker threads
+     */
+    public BotSimulation(int rows, int cols, int mineCount, Supplier<BotStrategy> botFactory, int threads) {
+        MineSweeper check = new MineSweeper(rows, cols, mineCount, 0);
+        check.setInstrumented(false);
+        check.startGame(rows / 2, cols / 2); // same checks as a real game
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.mineCount = mineCount;
+        this.botFactory = botFactory;
+        this.threads = threads;
+    }
+
+    /**
+     * Plays the games and waits for them to finish.
+     * @param games number of games to play
+     * @param masterSeed seed every game's board and bot seed is derived from
+     * @param progress where to print a progress line every second, or null for none
+     * @return statistics of the run
+     */
+    public SimulationResult run(long games, long masterSeed, PrintStream progress) {
+        gamesPlayed.reset();
+        gamesWon.reset();
+        totalMoves.reset();
+        totalGuesses.reset();
+        AtomicLong nextGame = new AtomicLong();
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = null;
+        if (progress != null) {
+            reporter = Executors.newSingleThreadScheduledExecutor();
+            reporter.scheduleAtFixedRate(() -> progress.println(snapshot(games, start)), 1, 1, TimeUnit.SECONDS);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                pool.execute(() -> work(nextGame, games, masterSeed));
+            }
+            pool.shutdown();
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting, progress is printed by the reporter
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+        }
+        return snapshot(games, start);
+    }
+
+    /**
+     * Worker loop, claims blocks of game numbers until none are left.
+     */
+    private void work(AtomicLong nextGame, long games, long masterSeed) {
+        BotStrategy bot = botFactory.get();
+        BotMoveCounter counter = new BotMoveCounter();
+        while (!Thread.currentThread().isInterrupted()) {
+            long first = nextGame.getAndAdd(BLOCK_SIZE);
+            if (first >= games) {
+                return;
+            }
+            long last = Math.min(first + BLOCK_SIZE, games);
+            long won = 0;
+            long moves = 0;
+            long guesses = 0;
+            for (long game = first; game < last; game++) {
+                long boardSeed = mix(masterSeed, game);
+                MineSweeper mineSweeper = new MineSweeper(rows, cols, mineCount, boardSeed);
+                mineSweeper.startGame(rows / 2, cols / 2);
+                counter.reset();
+                counter.countMoves(1); // the opening click
+                bot.play(mineSweeper, new SplittableRandom(mix(boardSeed, game)), counter);
+                if (mineSweeper.getGameStatus() == MineSweeperMessages.GAME_WON) {
+                    won++;
+                }
+                moves += counter.getMoves();
+                guesses += counter.getGuesses();
+            }
+            gamesWon.add(won);
+            totalMoves.add(moves);
+            totalGuesses.add(guesses);
+            gamesPlayed.add(last - first); // last, so a snapshot never sees more wins than games
+        }
+    }
+
+    private SimulationResult snapshot(long games, long start) {
+        return new SimulationResult(games, gamesPlayed.sum(), gamesWon.sum(), totalMoves.sum(),
+                totalGuesses.sum(), System.nanoTime() - start);
+    }
+
+    /**
+     * SplitMix64 style mix of a seed and a game number, so neighbouring games get unrelated seeds.
+     */
+    private static long mix(long seed, long game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Statistics of a whole run, or of a run still in progress.
+     */
+    public static class SimulationResult {
+        private final long gamesRequested;
+        private final long gamesPlayed;
+        private final long gamesWon;
+        private final long totalMoves;
+        private final long totalGuesses;
+        private final long elapsedNanos;
+
+        public SimulationResult(long gamesRequested, long gamesPlayed, long gamesWon, long totalMoves,
+                long totalGuesses, long elapsedNanos) {
+            this.gamesRequested = gamesRequested;
+            this.gamesPlayed = gamesPlayed;
+            this.gamesWon = gamesWon;
+            this.totalMoves = totalMoves;
+            this.totalGuesses = totalGuesses;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getGamesPlayed() {
+            return gamesPlayed;
+        }
+
+        public long getGamesWon() {
+            return gamesWon;
+        }
+
+        public double getWinRate() {
+            return gamesPlayed == 0 ? 0 : (double) gamesWon / gamesPlayed;
+        }
+
+        public double getAverageMoves() {
+            return gamesPlayed == 0 ? 0 : (double) totalMoves / gamesPlayed;
+        }
+
+        public double getGuessesPerGame() {
+            return gamesPlayed == 0 ? 0 : (double) totalGuesses / gamesPlayed;
+        }
+
+        public double getGamesPerSecond() {
+            return elapsedNanos == 0 ? 0 : gamesPlayed / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d games, win rate %.2f%%, %.1f moves/game, %.2f guesses/game, %.0f games/s",
+                    gamesPlayed, gamesRequested, getWinRate() * 100, getAverageMoves(), getGuessesPerGame(),
+                    getGamesPerSecond());
+        }
+    }
+
+    /**
+     * Command line entry, reached with Main --simulate.
+     * Options: --difficulty EASY|MEDIUM|HARD (mine density), or --mines N, --rows R, --cols C,
+     * --games N, --threads N, --seed S, --bot solver|solver-random-guess
+     * @param args options as above
+     */
+    public static void main(String[] args) {
+        int rows = 16;
+        int cols = 30;
+        int mines = -1;
+        MineSweeperDifficulty difficulty = null;
+        long games = 100_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String bot = "solver";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(value);
+                case "--cols" -> cols = Integer.parseInt(value);
+                case "--mines" -> mines = Integer.parseInt(value);
+                case "--difficulty" -> difficulty = MineSweeperDifficulty.valueOf(value.toUpperCase());
+                case "--games" -> games = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--bot" -> bot = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (mines < 0) {
+            double density = difficulty == null ? 99.0 / (16 * 30) : difficulty.getBombPercentage();
+            mines = Math.min((int) (rows * cols * density), rows * cols - 9);
+        }
+        Supplier<BotStrategy> botFactory = switch (bot) {
+            case "solver" -> () -> new SolverBot(true);
+            case "solver-random-guess" -> () -> new SolverBot(false);
+            default -> throw new IllegalArgumentException("Unknown bot " + bot);
+        };
+        System.out.printf("%s bot on %dx%d with %d mines, %d games on %d threads, seed %d%n",
+                bot, rows, cols, mines, games, threads, seed);
+        BotSimulation simulation = new BotSimulation(rows, cols, mines, botFactory, threads);
+        SimulationResult result = simulation.run(games, seed, System.out);
+        System.out.println("Done: " + result);
+    }
+}
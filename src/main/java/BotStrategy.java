@@ -0,0 +1,21 @@
+import java.util.SplittableRandom;
+
+/**
+ * A bot that can play MineSweeper headless, plugged into BotSimulation.
+ * Each simulation thread gets its own instance, so bots may keep reusable state between games.
+ */
+public interface BotStrategy {
+    /**
+     * Gets a short name for reports.
+     * @return name of the bot
+     */
+    String getName();
+
+    /**
+     * Plays a started game until it is won or lost.
+     * @param game started game to play
+     * @param random randomness for the bot's guesses, seeded per game so runs can be repeated
+     * @param counter where the bot counts the moves and guesses it makes
+     */
+    void play(MineSweeper game, SplittableRandom random, BotMoveCounter counter);
+}
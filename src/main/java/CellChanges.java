@@ -0,0 +1,105 @@
+/**
+ * List of the cells changed by the last move on a MineSweeper game.
+ * Stores the index and the new packed cell byte of every change in primitive arrays that are
+ * reused from move to move, so frontends can repaint only what changed.
+ * If a cell changes more than once in a move it appears more than once, the last entry wins.
+ */
+public class CellChanges {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int cols;
+    private int[] indices;
+    private byte[] cells;
+    private int size;
+
+    public CellChanges(int cols) {
+        this.cols = cols;
+        this.indices = new int[INITIAL_CAPACITY];
+        this.cells = new byte[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Empties the list, keeping the arrays for the next move.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Records a change to a cell.
+     * @param index row-major index of the cell
+     * @param cell new packed cell byte
+     */
+    public void add(int index, int cell) {
+        if (size == indices.length) {
+            indices = java.util.Arrays.copyOf(indices, size * 2);
+            cells = java.util.Arrays.copyOf(cells, size * 2);
+        }
+        indices[size] = index;
+        cells[size] = (byte) cell;
+        size++;
+    }
+
+    /**
+     * Gets the number of changes recorded.
+     * @return number of changes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the row-major index of a change.
+     * @param i position in the list
+     * @return index of the changed cell
+     */
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Gets the row of a change.
+     * @param i position in the list
+     * @return row of the changed cell
+     */
+    public int getRow(int i) {
+        return indices[i] / cols;
+    }
+
+    /**
+     * Gets the column of a change.
+     * @param i position in the list
+     * @return column of the changed cell
+     */
+    public int getCol(int i) {
+        return indices[i] % cols;
+    }
+
+    /**
+     * Gets the new packed cell byte of a change.
+     * @param i position in the list
+     * @return packed cell, see MineGrid for the layout
+     */
+    public int getCell(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Gets the new state of a change, in the same form as MineSweeper.getNode.
+     * @param i position in the list
+     * @return state of the changed cell
+     */
+    public MineSweeperMessages getState(int i) {
+        return MineSweeper.stateOf(cells[i]);
+    }
+
+    /**
+     * Gets the number of bombs next to a changed cell.
+     * @param i position in the list
+     * @return number of nearby bombs
+     */
+    public int getBombsNearby(int i) {
+        return cells[i] & MineGrid.COUNT_MASK;
+    }
+}
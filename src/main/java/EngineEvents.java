@@ -0,0 +1,93 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the game engine and the board drawing.
+ * They cost nothing until a recording is started, e.g. with
+ * java -XX:StartFlightRecording=filename=game.jfr -jar Minesweeper.jar
+ * and show up under Minesweeper in JDK Mission Control or jfr print --categories Minesweeper.
+ */
+public final class EngineEvents {
+
+    private EngineEvents() {
+    }
+
+    @Name("minesweeper.GameStart")
+    @Label("Game Start")
+    @Category("Minesweeper")
+    @Description("Board generation, mine placement and the first flood fill")
+    static class GameStart extends Event {
+        @Label("Rows")
+        int rows;
+        @Label("Columns")
+        int cols;
+        @Label("Mines")
+        int mines;
+        @Label("Cells Revealed")
+        int cellsRevealed;
+    }
+
+    @Name("minesweeper.Move")
+    @Label("Move")
+    @Category("Minesweeper")
+    @Description("One reveal or flag")
+    static class Move extends Event {
+        @Label("Flag")
+        boolean flag;
+        @Label("Row")
+        int row;
+        @Label("Column")
+        int col;
+        @Label("Result")
+        String result;
+        @Label("Cells Changed")
+        int cellsChanged;
+    }
+
+    @Name("minesweeper.MoveBatch")
+    @Label("Move Batch")
+    @Category("Minesweeper")
+    @Description("A batch of moves made with applyMoves")
+    static class MoveBatch extends Event {
+        @Label("Moves")
+        int moves;
+        @Label("Applied")
+        int applied;
+        @Label("Cells Changed")
+        int cellsChanged;
+    }
+
+    @Name("minesweeper.FloodFill")
+    @Label("Flood Fill")
+    @Category("Minesweeper")
+    @Description("Cells opened by one cascade")
+    static class FloodFill extends Event {
+        @Label("Cells Revealed")
+        int cellsRevealed;
+    }
+
+    @Name("minesweeper.NoGuessSearch")
+    @Label("No-Guess Search")
+    @Category("Minesweeper")
+    @Description("Looking for a board that can be solved without guessing")
+    static class NoGuessSearch extends Event {
+        @Label("Boards Tried")
+        long boardsTried;
+        @Label("Found")
+        boolean found;
+    }
+
+    @Name("minesweeper.RenderPass")
+    @Label("Render Pass")
+    @Category("Minesweeper")
+    @Description("Drawing the cells changed by a move")
+    static class RenderPass extends Event {
+        @Label("Cells")
+        int cells;
+        @Label("Canvas")
+        boolean canvas;
+    }
+}
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and histograms for the game engine, to see where time goes over a long run such as
+ * a bot simulation or the game server.
+ * Off unless the JVM is started with -Dminesweeper.metrics=true. ENABLED is a static final, so
+ * when it is off the JIT drops every check and no clock is read. When on, a summary is printed to
+ * standard error at exit. All of it is safe to update from many threads.
+ */
+public final class EngineMetrics {
+    static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    static final Histogram START_NANOS = new Histogram("start game", true);
+    static final Histogram REVEAL_NANOS = new Histogram("reveal", true);
+    static final Histogram FLAG_NANOS = new Histogram("flag", true);
+    static final Histogram BATCH_NANOS = new Histogram("move batch", true);
+    static final Histogram CASCADE_CELLS = new Histogram("cascade cells", false);
+    static final Histogram NO_GUESS_NANOS = new Histogram("no-guess search", true);
+    static final Histogram NO_GUESS_BOARDS = new Histogram("no-guess boards tried", false);
+    static final Histogram RENDER_NANOS = new Histogram("render pass", true);
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(summary()), "metrics-summary"));
+        }
+    }
+
+    private EngineMetrics() {
+    }
+
+    /**
+     * Reads the clock for a later recordSince, only when metrics are on.
+     * @return nanoTime, or 0 when metrics are off
+     */
+    static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Counts of values in power of two buckets, plus their count, sum and maximum.
+     * Bucket b holds values from 2^(b-1) up to 2^b - 1, and bucket 0 holds 0.
+     */
+    static final class Histogram {
+        private final String name;
+        private final boolean nanos; // values are durations, printed in readable units
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram(String name, boolean nanos) {
+            this.name = name;
+            this.nanos = nanos;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+            HISTOGRAMS.add(this);
+        }
+
+        /**
+         * Adds one value, does nothing when metrics are off.
+         * @param value value to add, negative values count as 0
+         */
+        void record(long value) {
+            if (!ENABLED) {
+                return;
+            }
+            value = Math.max(value, 0);
+            buckets[Math.min(64 - Long.numberOfLeadingZeros(value), buckets.length - 1)].increment();
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Adds the time since a start read, does nothing when metrics are off.
+         * @param start value from EngineMetrics.start
+         */
+        void recordSince(long start) {
+            if (ENABLED) {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets an upper bound for a percentile, the top of the bucket it falls in.
+         * @param fraction between 0 and 1, e.g. 0.99
+         * @return value no more than twice the real percentile, 0 when empty
+         */
+        long percentile(double fraction) {
+            long total = count.sum();
+            long wanted = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b].sum();
+                if (seen >= wanted && seen > 0) {
+                    return b == 0 ? 0 : Math.min((1L << b) - 1, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        private String format(long value) {
+            if (!nanos) {
+                return Long.toString(value);
+            }
+            if (value < 10_000) {
+                return value + " ns";
+            }
+            if (value < 10_000_000) {
+                return value / 1_000 + " us";
+            }
+            return value / 1_000_000 + " ms";
+        }
+    }
+
+    /**
+     * Makes a table of every histogram that has values.
+     * @return summary text, one line per histogram
+     */
+    static String summary() {
+        StringBuilder out = new StringBuilder("Engine metrics:\n");
+        for (Histogram histogram : HISTOGRAMS) {
+            long count = histogram.getCount();
+            if (count == 0) {
+                continue;
+            }
+            out.append(String.format("  %-22s count %-10d mean %-9s p50 <= %-9s p99 <= %-9s max %s%n",
+                    histogram.name, count, histogram.format(histogram.sum.sum() / count),
+                    histogram.format(histogram.percentile(0.5)), histogram.format(histogram.percentile(0.99)),
+                    histogram.format(histogram.max.get())));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.function.LongSupplier;
+
+/**
+ * Time played in a game, kept by the engine from System.nanoTime so it does not depend on any
+ * frontend or on how often a display is refreshed.
+ * The clock is only read when asked, moves never touch it, and it can be paused and resumed
+ * without losing time. Like MineSweeper it is not thread safe.
+ */
+public class GameClock {
+    private final LongSupplier nanoTime;
+    private long elapsedBefore; // nanoseconds from earlier running spells
+    private long runningSince; // nanoTime when last started or resumed
+    private boolean running;
+
+    public GameClock() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Constructor for GameClock with another time source, e.g. a fake one to check timings.
+     * @param nanoTime source of monotonic nanoseconds
+     */
+    GameClock(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Starts the clock from zero.
+     */
+    public void start() {
+        elapsedBefore = 0;
+        runningSince = nanoTime.getAsLong();
+        running = true;
+    }
+
+    /**
+     * Stops the clock, keeping the time so far. Does nothing if it is already stopped.
+     */
+    public void pause() {
+        if (running) {
+            elapsedBefore += nanoTime.getAsLong() - runningSince;
+            running = false;
+        }
+    }
+
+    /**
+     * Carries on from the time so far. Does nothing if it is already running.
+     */
+    public void resume() {
+        if (!running) {
+            runningSince = nanoTime.getAsLong();
+            running = true;
+        }
+    }
+
+    /**
+     * Stops the clock and sets the time played, e.g. for a loaded game. Call resume to carry on.
+     * @param elapsedMillis time already played
+     */
+    public void set(long elapsedMillis) {
+        if (elapsedMillis < 0) {
+            throw new IllegalArgumentException("Elapsed time must not be negative");
+        }
+        elapsedBefore = elapsedMillis * 1_000_000;
+        running = false;
+    }
+
+    /**
+     * Gets the time played.
+     * @return elapsed nanoseconds, not counting paused time
+     */
+    public long getElapsedNanos() {
+        return running ? elapsedBefore + nanoTime.getAsLong() - runningSince : elapsedBefore;
+    }
+
+    public long getElapsedMillis() {
+        return getElapsedNanos() / 1_000_000;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo for a started game.
+ * Every move is kept as a PersistentBoard version sharing its unchanged parts with the one before,
+ * so a long game keeps all its versions for about the memory of the cells its moves changed.
+ * Undo and redo only write back the cells that differ, and list them in the game's getLastChanges
+ * so frontends can redraw just those.
+ * Call record after every move made on the game, or the history falls out of step with the board.
+ */
+public class GameHistory {
+    private final MineSweeper game;
+    private final List<Version> versions = new ArrayList<>();
+    private int current; // position of the version the game is showing
+
+    /**
+     * One point in the game, the board plus the counters that go with it.
+     */
+    private static class Version {
+        private final PersistentBoard board;
+        private final int numberOfFlags;
+        private final int unrevealedSafeNodes;
+        private final MineSweeperMessages status;
+
+        Version(PersistentBoard board, MineSweeper game) {
+            this.board = board;
+            this.numberOfFlags = game.getNumberOfFlags();
+            this.unrevealedSafeNodes = game.getUnrevealedSafeNodes();
+            this.status = game.getGameStatus();
+        }
+    }
+
+    /**
+     * Constructor for GameHistory, the game as it is now becomes the first version and can't be undone.
+     * @param game a game that has been started
+     */
+    public GameHistory(MineSweeper game) {
+        if (!game.isStarted()) {
+            throw new IllegalArgumentException("Game must be started before keeping its history");
+        }
+        this.game = game;
+        versions.add(new Version(game.toPersistentBoard(), game));
+    }
+
+    /**
+     * Adds the last move made on the game as a new version and drops anything that could be redone.
+     * Moves that changed nothing are skipped.
+     */
+    public void record() {
+        CellChanges changes = game.getLastChanges();
+        if (changes.size() == 0) {
+            return;
+        }
+        PersistentBoard board = versions.get(current).board.with(changes);
+        versions.subList(current + 1, versions.size()).clear();
+        versions.add(new Version(board, game));
+        current++;
+    }
+
+    /**
+     * Takes the game back one move.
+     * @return true if a move was undone, false if there was nothing to undo
+     */
+    public boolean undo() {
+        if (!canUndo()) {
+            return false;
+        }
+        moveTo(current - 1);
+        return true;
+    }
+
+    /**
+     * Makes the last undone move again.
+     * @return true if a move was redone, false if there was nothing to redo
+     */
+    public boolean redo() {
+        if (!canRedo()) {
+            return false;
+        }
+        moveTo(current + 1);
+        return true;
+    }
+
+    private void moveTo(int position) {
+        Version target = versions.get(position);
+        game.restoreVersion(versions.get(current).board, target.board, target.numberOfFlags,
+                target.unrevealedSafeNodes, target.status);
+        current = position;
+    }
+
+    public boolean canUndo() {
+        return current > 0;
+    }
+
+    public boolean canRedo() {
+        return current < versions.size() - 1;
+    }
+
+    /**
+     * Gets the board as of the current version, e.g. for a solver to branch hypothetical boards from
+     * without touching the game.
+     * @return current version of the board
+     */
+    public PersistentBoard getCurrentBoard() {
+        return versions.get(current).board;
+    }
+
+    /**
+     * Gets how many moves can be undone.
+     * @return number of moves before the current version
+     */
+    public int getPosition() {
+        return current;
+    }
+}
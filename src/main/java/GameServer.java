@@ -0,0 +1,433 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hosts many games at once over plain HTTP, for bots and browser players on the local network.
+ * Every request runs on its own virtual thread, so tens of thousands of open sessions cost no
+ * more than their boards. Moves answer with the cells they changed, not the whole board.
+ *
+ * Endpoints, all answering JSON:
+ *   POST   /games?rows=R&amp;cols=C&amp;mines=M[&amp;seed=S]  new session, the board is made on the first reveal
+ *   POST   /games/{id}/reveal?row=R&amp;col=C             reveal a cell, changed cells in "changes"
+ *   POST   /games/{id}/flag?row=R&amp;col=C               flag or unflag a cell, after the first reveal
+ *   GET    /games/{id}                                every revealed or flagged cell, to draw the board
+ *   DELETE /games/{id}                                end the session
+ * A change is [row, col, code]: 0-8 revealed count, -1 hidden, -2 flagged, -3 revealed mine.
+ *
+ * Sessions live in a map bounded by maxSessions, sessions idle for longer than the timeout are
+ * dropped by a sweep, and a full server evicts idle sessions before refusing new ones with 503.
+ * Boards bigger than maxCells are refused with 400, so one request can't take the server's memory.
+ */
+public class GameServer {
+    private static final int CODE_HIDDEN = -1;
+    private static final int CODE_FLAGGED = -2;
+    private static final int CODE_MINE = -3;
+    public static final int DEFAULT_MAX_CELLS = 1000 * 1000; // same as the largest custom board
+
+    private final InetSocketAddress address;
+    private final int maxSessions;
+    private final int maxCells;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger sessionCount = new AtomicInteger(); // kept beside the map so the bound is exact
+    private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * One game and the lock its moves are made under.
+     * ReentrantLock rather than synchronized, so a virtual thread waiting on a busy session
+     * unmounts instead of pinning its carrier thread.
+     */
+    private static class Session {
+        private final MineSweeper game;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private Session(MineSweeper game) {
+            this.game = game;
+        }
+    }
+
+    /**
+     * Thrown while handling a request to answer with an HTTP error.
+     */
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Constructor for GameServer, with boards of up to DEFAULT_MAX_CELLS cells.
+     * @param address address and port to listen on, port 0 picks a free port
+     * @param maxSessions most sessions kept at once
+     * @param idleTimeoutMillis sessions without a request for this long are dropped
+     */
+    public GameServer(InetSocketAddress address, int maxSessions, long idleTimeoutMillis) {
+        this(address, maxSessions, idleTimeoutMillis, DEFAULT_MAX_CELLS);
+    }
+
+    /**
+     * Constructor for GameServer.
+     * @param address address and port to listen on, port 0 picks a free port
+     * @param maxSessions most sessions kept at once
+     * @param idleTimeoutMillis sessions without a request for this long are dropped
+     * @param maxCells most cells a session's board may have
+     */
+    public GameServer(InetSocketAddress address, int maxSessions, long idleTimeoutMillis, int maxCells) {
+        if (maxSessions < 1 || idleTimeoutMillis < 1 || maxCells < 1) {
+            throw new IllegalArgumentException("Session limit, idle timeout and cell limit must be positive");
+        }
+        this.address = address;
+        this.maxSessions = maxSessions;
+        this.maxCells = maxCells;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    }
+
+    /**
+     * Starts listening, requests are handled on virtual threads.
+     * @throws IOException if the address can not be bound
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(address, 1024);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/games", this::handle);
+        server.start();
+        long sweepMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 4);
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the server, waiting up to a second for requests in flight.
+     */
+    public void stop() {
+        server.stop(1);
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+        sessions.clear();
+        sessionCount.set(0);
+    }
+
+    /**
+     * Gets the port the server listens on, useful when it was started on port 0.
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the number of open sessions.
+     * @return open sessions
+     */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /**
+     * Drops every session that has been idle for longer than the timeout.
+     * @return number of sessions dropped
+     */
+    int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (var entry : sessions.entrySet()) {
+            if (now - entry.getValue().lastUsedNanos > idleTimeoutNanos
+                    && sessions.remove(entry.getKey(), entry.getValue())) {
+                sessionCount.decrementAndGet();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Routes a request on /games and writes the answer or the error.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange);
+        } catch (RequestException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) { // a bug should still get an answer, not a dropped connection
+            status = 500;
+            body = error("Internal error");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*"); // browser pages served elsewhere
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String route(HttpExchange exchange) {
+        String method = exchange.getRequestMethod();
+        String[] parts = exchange.getRequestURI().getPath().split("/"); // "", "games", id, action
+        String query = exchange.getRequestURI().getRawQuery();
+        if (parts.length < 2 || !parts[1].equals("games") || parts.length > 4) {
+            throw new RequestException(404, "Unknown path");
+        }
+        if (parts.length == 2) {
+            requireMethod(method, "POST");
+            return create(query);
+        }
+        String id = parts[2];
+        if (parts.length == 3) {
+            if (method.equals("DELETE")) {
+                if (sessions.remove(id) == null) {
+                    throw new RequestException(404, "No game " + id);
+                }
+                sessionCount.decrementAndGet();
+                return "{\"deleted\":\"" + id + "\"}";
+            }
+            requireMethod(method, "GET");
+            return state(session(id));
+        }
+        requireMethod(method, "POST");
+        return switch (parts[3]) {
+            case "reveal" -> move(session(id), query, false);
+            case "flag" -> move(session(id), query, true);
+            default -> throw new RequestException(404, "Unknown action " + parts[3]);
+        };
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new RequestException(405, "Use " + expected);
+        }
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            throw new RequestException(404, "No game " + id);
+        }
+        session.lastUsedNanos = System.nanoTime();
+        return session;
+    }
+
+    /**
+     * Makes a new session, evicting idle ones first if the server is full.
+     * The slot is reserved before the board is made, so a full server allocates nothing.
+     */
+    private String create(String query) {
+        int rows = intParam(query, "rows");
+        int cols = intParam(query, "cols");
+        int mines = intParam(query, "mines");
+        if (rows > 0 && cols > 0 && (long) rows * cols > maxCells) {
+            throw new IllegalArgumentException("Board is too large, at most " + maxCells + " cells");
+        }
+        String seedText = param(query, "seed");
+        Long seed = seedText == null ? null : Long.parseLong(seedText);
+        if (!reserveSession()) {
+            evictIdle();
+            if (!reserveSession()) {
+                throw new RequestException(503, "Server is full, try again later");
+            }
+        }
+        MineSweeper game;
+        try {
+            game = seed == null ? new MineSweeper(rows, cols, mines) : new MineSweeper(rows, cols, mines, seed);
+        } catch (RuntimeException | Error e) {
+            sessionCount.decrementAndGet(); // give the slot back, e.g. for a bad mine count
+            throw e;
+        }
+        Session session = new Session(game);
+        String id;
+        do {
+            id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+        } while (sessions.putIfAbsent(id, session) != null);
+        return "{\"id\":\"" + id + "\",\"rows\":" + rows + ",\"cols\":" + cols + ",\"mines\":" + mines + "}";
+    }
+
+    private boolean reserveSession() {
+        int count;
+        do {
+            count = sessionCount.get();
+            if (count >= maxSessions) {
+                return false;
+            }
+        } while (!sessionCount.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * Makes a move and answers with the cells it changed.
+     * The first reveal of a session starts the game there, like the first click in the GUI.
+     * Flags before it are refused, starting the game would clear them without listing them as changed.
+     */
+    private String move(Session session, String query, boolean flag) {
+        int row = intParam(query, "row");
+        int col = intParam(query, "col");
+        session.lock.lock();
+        try {
+            MineSweeper game = session.game;
+            if (game.isOutOfBounds(row, col)) {
+                throw new IllegalArgumentException("Coordinates out of bounds");
+            }
+            if (game.getGameStatus() != MineSweeperMessages.GAME_ONGOING) {
+                throw new RequestException(409, "Game is over");
+            }
+            MineSweeperMessages result;
+            if (flag && !game.isStarted()) {
+                throw new RequestException(409, "Reveal a cell before flagging");
+            } else if (flag) {
+                result = game.flagNode(row, col);
+            } else if (!game.isStarted()) {
+                game.startGame(row, col);
+                result = MineSweeperMessages.NODE_NOW_REVEALED;
+            } else {
+                result = game.revealNode(row, col);
+            }
+            return answer(game, result.name());
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Answers with every revealed or flagged cell, so a client can draw the board from nothing.
+     */
+    private String state(Session session) {
+        session.lock.lock();
+        try {
+            session.game.recordVisibleCells();
+            return answer(session.game, null);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the status of a game and its last changes as JSON. Called with the session locked.
+     */
+    private static String answer(MineSweeper game, String result) {
+        CellChanges changes = game.getLastChanges();
+        StringBuilder json = new StringBuilder(64 + changes.size() * 12);
+        json.append('{');
+        if (result != null) {
+            json.append("\"result\":\"").append(result).append("\",");
+        }
+        json.append("\"status\":\"").append(game.getGameStatus().name()).append('"');
+        json.append(",\"rows\":").append(game.getRows()).append(",\"cols\":").append(game.getCols());
+        json.append(",\"minesLeft\":").append(game.getNumberOfMinesLeft());
+        json.append(",\"changes\":[");
+        for (int i = 0; i < changes.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(changes.getRow(i)).append(',').append(changes.getCol(i)).append(',')
+                    .append(codeOf(changes.getCell(i))).append(']');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static int codeOf(int cell) {
+        if ((cell & MineGrid.REVEALED_BIT) != 0) {
+            return (cell & MineGrid.BOMB_BIT) != 0 ? CODE_MINE : cell & MineGrid.COUNT_MASK;
+        }
+        return (cell & MineGrid.FLAGGED_BIT) != 0 ? CODE_FLAGGED : CODE_HIDDEN;
+    }
+
+    private static String error(String message) {
+        String text = message == null ? "Bad request" : message.replace("\\", "\\\\").replace("\"", "\\\"");
+        return "{\"error\":\"" + text + "\"}";
+    }
+
+    /**
+     * Finds a parameter in a query string like "row=3&amp;col=4".
+     * @return the value, or null if it is missing
+     */
+    private static String param(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        int start = 0;
+        while (start < query.length()) {
+            int end = query.indexOf('&', start);
+            if (end < 0) {
+                end = query.length();
+            }
+            int equals = query.indexOf('=', start);
+            if (equals > start && equals < end && query.regionMatches(start, name, 0, name.length())
+                    && equals - start == name.length()) {
+                return query.substring(equals + 1, end);
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
+    private static int intParam(String query, String name) {
+        String value = param(query, name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return Integer.parseInt(value);
+    }
+
+    /**
+     * Command line entry, reached with Main --server.
+     * Options: --host H (default loopback, 0.0.0.0 for the whole network), --port N (default 8080),
+     * --max-sessions N (default 100000), --idle-minutes N (default 10), --max-cells N (default 1000000)
+     * @param args options as above
+     * @throws IOException if the port can not be bound
+     */
+    public static void main(String[] args) throws IOException {
+        String host = null;
+        int port = 8080;
+        int maxSessions = 100_000;
+        long idleMinutes = 10;
+        int maxCells = DEFAULT_MAX_CELLS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--host" -> host = value;
+                case "--port" -> port = Integer.parseInt(value);
+                case "--max-sessions" -> maxSessions = Integer.parseInt(value);
+                case "--idle-minutes" -> idleMinutes = Long.parseLong(value);
+                case "--max-cells" -> maxCells = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        InetAddress bind = host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+        GameServer server = new GameServer(new InetSocketAddress(bind, port), maxSessions,
+                TimeUnit.MINUTES.toMillis(idleMinutes), maxCells);
+        server.start();
+        System.out.printf("Game server on http://%s:%d/games, up to %d sessions, %d minute idle timeout%n",
+                bind.getHostAddress(), server.getPort(), maxSessions, idleMinutes);
+    }
+}
@@ -0,0 +1,247 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Complete state of a game, in a compact binary form that can be saved and loaded.
+ * The mines, revealed cells and flags are each stored as one bit per cell in long words, so a
+ * 1000x1000 board takes about 375 KB. Nearby counts and the other counters are not stored,
+ * they are worked out again when the game is restored.
+ *
+ * Layout, big-endian: magic "MSWP", version, rows, cols, mine count, status, start row, start
+ * column (-1 before the first click), seed, elapsed milliseconds, whether the seed still makes the
+ * mines (a byte), then the mine, revealed and flagged bitsets of
+ * (rows * cols + 63) / 64 words each.
+ */
+public class GameSnapshot {
+    private static final int MAGIC = 0x4D535750; // "MSWP"
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 1 + 4 + 4 + 8 + 8 + 1;
+
+    private final int rows;
+    private final int cols;
+    private final int mineCount;
+    private final MineSweeperMessages status;
+    private final int startRow;
+    private final int startCol;
+    private final long seed;
+    private final boolean fromSeed;
+    private final long elapsedMillis;
+    private final long[] mines;
+    private final long[] revealed;
+    private final long[] flagged;
+
+    /**
+     * Constructor for GameSnapshot, see MineSweeper.toSnapshot for taking one from a game.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param mineCount number of mines
+     * @param status GAME_ONGOING, GAME_OVER or GAME_WON
+     * @param startRow row of the first click, -1 if the game was not started
+     * @param startCol column of the first click, -1 if the game was not started
+     * @param seed seed of the board
+     * @param fromSeed false if mines were moved after the seed placed them
+     * @param elapsedMillis time played so far
+     * @param mines one bit per cell holding a mine
+     * @param revealed one bit per revealed cell
+     * @param flagged one bit per flagged cell
+     */
+    public GameSnapshot(int rows, int cols, int mineCount, MineSweeperMessages status, int startRow, int startCol,
+            long seed, boolean fromSeed, long elapsedMillis, long[] mines, long[] revealed, long[] flagged) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + rows + " x " + cols);
+        }
+        int words = wordsFor(rows * cols);
+        if (mines.length != words || revealed.length != words || flagged.length != words) {
+            throw new IllegalArgumentException("Bitsets do not match the board size");
+        }
+        if (!isGameStatus(status)) {
+            throw new IllegalArgumentException("Invalid game status: " + status);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.mineCount = mineCount;
+        this.status = status;
+        this.startRow = startRow;
+        this.startCol = startCol;
+        this.seed = seed;
+        this.fromSeed = fromSeed;
+        this.elapsedMillis = elapsedMillis;
+        this.mines = mines;
+        this.revealed = revealed;
+        this.flagged = flagged;
+    }
+
+    /**
+     * Checks that a status is one a game can be in, the other messages describe single moves.
+     * @param status status to check
+     * @return true for GAME_ONGOING, GAME_OVER or GAME_WON
+     */
+    private static boolean isGameStatus(MineSweeperMessages status) {
+        return status == MineSweeperMessages.GAME_ONGOING || status == MineSweeperMessages.GAME_OVER
+                || status == MineSweeperMessages.GAME_WON;
+    }
+
+    /**
+     * Gets the number of long words needed for one bit per cell.
+     * @param cells number of cells
+     * @return number of words
+     */
+    public static int wordsFor(int cells) {
+        return (cells + 63) >>> 6;
+    }
+
+    /**
+     * Writes the snapshot to a channel.
+     * @param channel channel to write to, left open
+     * @throws IOException if writing fails
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 3 * 8 * mines.length);
+        buffer.putInt(MAGIC).putShort(VERSION);
+        buffer.putInt(rows).putInt(cols).putInt(mineCount);
+        buffer.put((byte) status.ordinal());
+        buffer.putInt(startRow).putInt(startCol);
+        buffer.putLong(seed).putLong(elapsedMillis);
+        buffer.put((byte) (fromSeed ? 1 : 0));
+        buffer.asLongBuffer().put(mines).put(revealed).put(flagged); // bulk copies, no per-word calls
+        buffer.position(buffer.capacity()).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a channel.
+     * @param channel channel to read from, left open
+     * @return the snapshot read
+     * @throws IOException if reading fails or the data is not a snapshot
+     */
+    public static GameSnapshot read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = readFully(channel, HEADER_BYTES);
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a saved MineSweeper game");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save version " + version);
+        }
+        int rows = header.getInt();
+        int cols = header.getInt();
+        int mineCount = header.getInt();
+        int statusOrdinal = header.get();
+        int startRow = header.getInt();
+        int startCol = header.getInt();
+        long seed = header.getLong();
+        long elapsedMillis = header.getLong();
+        boolean fromSeed = header.get() != 0;
+        // no game is bigger than a board code allows, so a corrupt size can't make us allocate gigabytes
+        if (rows < 1 || cols < 1 || rows > BoardCode.MAX_SIZE || cols > BoardCode.MAX_SIZE
+                || statusOrdinal < 0 || statusOrdinal >= MineSweeperMessages.values().length
+                || !isGameStatus(MineSweeperMessages.values()[statusOrdinal])) {
+            throw new IOException("Corrupt save header");
+        }
+        int words = wordsFor(rows * cols);
+        if (channel instanceof FileChannel file && file.size() - file.position() < 3L * 8 * words) {
+            throw new EOFException("Save file is cut short"); // found before reading the body into memory
+        }
+        ByteBuffer body = readFully(channel, 3 * 8 * words);
+        long[] mines = new long[words];
+        long[] revealed = new long[words];
+        long[] flagged = new long[words];
+        body.asLongBuffer().get(mines).get(revealed).get(flagged);
+        return new GameSnapshot(rows, cols, mineCount, MineSweeperMessages.values()[statusOrdinal], startRow, startCol,
+                seed, fromSeed, elapsedMillis, mines, revealed, flagged);
+    }
+
+    /**
+     * Saves the snapshot to a file, replacing it if it exists.
+     * @param path file to write
+     * @throws IOException if writing fails
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel);
+        }
+    }
+
+    /**
+     * Loads a snapshot from a file.
+     * @param path file to read
+     * @return the snapshot read
+     * @throws IOException if reading fails or the file is not a snapshot
+     */
+    public static GameSnapshot load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    private static ByteBuffer readFully(ReadableByteChannel channel, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Save file is cut short");
+            }
+        }
+        return buffer.flip();
+    }
+
+    static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    public MineSweeperMessages getStatus() {
+        return status;
+    }
+
+    public int getStartRow() {
+        return startRow;
+    }
+
+    public int getStartCol() {
+        return startCol;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean isFromSeed() {
+        return fromSeed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    long[] getMines() {
+        return mines;
+    }
+
+    long[] getRevealed() {
+        return revealed;
+    }
+
+    long[] getFlagged() {
+        return flagged;
+    }
+}
@@ -1,56 +1,58 @@
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.scene.control.Label;
-import javafx.util.Duration;
 
+/**
+ * Shows the time on a game's clock. The time itself is kept by the engine's GameClock, this label
+ * only displays it. It checks the clock once per frame and only changes its text when the shown
+ * second changes, so it costs one clock read a frame and one text update a second.
+ */
 public class GameTimer extends Label {
-    private int seconds = 0;
-    private Timeline timeline;
+    private GameClock clock; // null until a game is followed
+    private long shownSeconds = -1;
+    private final AnimationTimer refresher = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            refresh();
+        }
+    };
 
     public GameTimer() {
         super("Time: 0"); // initial label text
-        // Initialize the timeline to update every second
-        timeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
-        timeline.setCycleCount(Timeline.INDEFINITE);
     }
 
     /**
-     * Updates the timer label every second.
+     * Shows a clock and keeps the label up to date while it runs.
+     * @param clock clock to show, e.g. MineSweeper.getClock()
      */
-    private void update() {
-        seconds++;
-        setText("Time: " + seconds);
+    public void follow(GameClock clock) {
+        this.clock = clock;
+        refresh();
+        refresher.start();
     }
 
     /**
-     * Starts the timer.
+     * Updates the label if the second on the clock has changed.
      */
-    public void start() {
-        seconds = 0;
-        setText("Time: 0");
-        timeline.playFromStart();
+    private void refresh() {
+        long seconds = clock == null ? 0 : clock.getElapsedMillis() / 1000;
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            setText("Time: " + seconds);
+        }
     }
 
     /**
-     * Stops the timer.
+     * Stops updating the label, after showing the clock's final time.
      */
     public void stop() {
-        timeline.stop();
-    }
-
-    /**
-     * Resets the timer to zero and stops it.
-     */
-    public void reset() {
-        stop();
-        seconds = 0;
-        setText("Time: 0");
+        refresher.stop();
+        refresh();
     }
 
     /**
      * Returns the elapsed time in seconds.
      */
     public int getSeconds() {
-        return seconds;
+        return (int) Math.max(shownSeconds, 0);
     }
 }
@@ -1,6 +1,11 @@
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javafx.application.Platform;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
@@ -14,20 +19,66 @@ import javafx.scene.Parent;
 import javafx.scene.control.Button;
 
 public class GameView {
+    // boards with more cells than this are drawn on a canvas instead of one button per cell
+    private static final int MAX_BUTTON_GRID_CELLS = 25 * 25;
+
     private final SceneManager manager;
     private MineSweeper game;
     private GridPane gameGrid;
     private boolean firstClick;
     private Button[][] buttonGrid;
+    private BoardCanvas boardCanvas; // only used for large boards
     private Label statusLabel;
     private Label instructionLabel;
     private GameTimer gameTimer;
+    private Label boardCodeLabel;
+    private final BoardCode startingBoard; // board code to replay, or null for a fresh random board
+    private final boolean noGuess; // deal a board that can be solved without guessing on the first click
+    private boolean noGuessDealt; // the no-guess search has finished, whether or not it found a board
+    private final MineProbabilityCalculator probabilityCalculator = new MineProbabilityCalculator();
+    private Button hintButton;
+    private int hintRow = -1; // cell currently outlined by a hint, -1 for none
+    private int hintCol = -1;
+    private boolean restored; // built from a saved game, drawn as it was when saved
+    private GameHistory history; // made once the game has started, null before
+    private ReplayLog replayLog; // kept after recording stops, so it can still be saved
     private final Image flagImage = new Image(getClass().getResource("/images/flag.png").toExternalForm());
     private final Image bombImage = new Image(getClass().getResource("/images/mine.png").toExternalForm());
 
-    public GameView(SceneManager manager, int gridRows, int gridCols, int mineCount) {
+    // how long the first click may spend looking for a no-guess board before settling for a random one
+    private static final long NO_GUESS_TIMEOUT_MILLIS = 2000;
+
+    public GameView(SceneManager manager, int gridRows, int gridCols, int mineCount, boolean noGuess) {
+        this(manager, new MineSweeper(gridRows, gridCols, mineCount), null, noGuess);
+    }
+
+    /**
+     * Create a game view that replays a shared board
+     * The first click is made on the board's starting cell as soon as the view is shown
+     * @param manager SceneManager that owns the view
+     * @param boardCode board to replay
+     */
+    public GameView(SceneManager manager, BoardCode boardCode) {
+        this(manager, new MineSweeper(boardCode.getRows(), boardCode.getCols(), boardCode.getMineCount(),
+                boardCode.getSeed()), boardCode, false);
+    }
+
+    /**
+     * Create a game view for a saved game
+     * The board is drawn as it was saved and the timer carries on from the saved time
+     * @param manager SceneManager that owns the view
+     * @param snapshot saved game
+     */
+    public GameView(SceneManager manager, GameSnapshot snapshot) {
+        this(manager, MineSweeper.fromSnapshot(snapshot), null, false);
+        restored = true; // the game's clock already holds the saved time
+    }
+
+    private GameView(SceneManager manager, MineSweeper game, BoardCode startingBoard, boolean noGuess) {
         this.manager = manager;
-        game = new MineSweeper(gridRows, gridCols, mineCount);
+        this.game = game;
+        this.startingBoard = startingBoard;
+        this.noGuess = noGuess;
         gameGrid = new GridPane();
         gameGrid.setHgap(1);
         gameGrid.setVgap(1);
@@ -51,20 +102,27 @@ public class GameView {
         // === Grid Section ===
         createGrid(); // initial preview
         gameGrid.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        Region board = boardCanvas != null ? boardCanvas : gameGrid;
 
         // === Info Section ===
         statusLabel = new Label("Mines left: " + game.getNumberOfMinesLeft());
         gameTimer = new GameTimer();
         statusLabel.getStyleClass().add("detail-label");
+        boardCodeLabel = new Label("Board: not started");
+        boardCodeLabel.getStyleClass().add("detail-label");
+        hintButton = new Button("Hint");
+        hintButton.setFocusTraversable(false);
+        hintButton.setOnAction(e -> showHint());
         // --- Put labels side by side ---
-        HBox infoBox = new HBox(20, statusLabel, gameTimer);
+        HBox infoBox = new HBox(20, statusLabel, gameTimer, boardCodeLabel, hintButton);
         infoBox.setMaxWidth(Region.USE_PREF_SIZE);
         infoBox.setAlignment(Pos.CENTER);
         infoBox.getStyleClass().add("game-view-box");
 
         BorderPane root = new BorderPane();
         VBox topSection = new VBox(10, instructionBox, new Separator());
-        VBox centerSection = new VBox(10, gameGrid);
+        VBox centerSection = new VBox(10, board);
+        VBox.setVgrow(board, Priority.ALWAYS);
         VBox bottomSection = new VBox(10, new Separator(), infoBox);
 
         // middle section has not style as the grid pane already has it
@@ -78,14 +136,33 @@ public class GameView {
         root.setCenter(centerSection);
         root.setTop(topSection);
         root.setBottom(bottomSection);
+
+        // stop the timer once the view is replaced, its frame callback would keep this game alive
+        root.parentProperty().addListener((obs, oldParent, newParent) -> {
+            if (newParent == null) {
+                gameTimer.stop();
+            }
+        });
+        if (startingBoard != null) {
+            handleCellClick(MouseButton.PRIMARY, startingBoard.getStartRow(), startingBoard.getStartCol());
+        }
+        if (restored) {
+            showRestoredGame();
+        }
         return root;
     }
 
     /**
      * Create the grid of buttons representing the game board
      * Each button corresponds to a cell in the MineSweeper game
+     * Large boards get a canvas that only draws the visible part instead
      */
     private void createGrid() {
+        if ((long) game.getRows() * game.getCols() > MAX_BUTTON_GRID_CELLS) {
+            boardCanvas = new BoardCanvas(game.getRows(), game.getCols(), flagImage, bombImage);
+            boardCanvas.setOnCellClick(this::handleCellClick);
+            return;
+        }
         buttonGrid = new Button[game.getRows()][game.getCols()];
         gameGrid.getChildren().clear();
         for (int row = 0; row < game.getRows(); row++) {
@@ -94,7 +171,7 @@ public class GameView {
                 square.setFocusTraversable(false);
                 square.getStyleClass().add("square");
                 square.setUserData(new int[] { row, col }); // Store row and col in user data
-                square.setOnMouseClicked(e -> handleCellClick(e.getButton(), square));
+                square.setOnMouseClicked(e -> handleSquareClick(e.getButton(), square));
                 square.setMaxSize(25, 25);
                 buttonGrid[row][col] = square;
                 gameGrid.add(square, col, row);
@@ -102,24 +179,35 @@ public class GameView {
         }
     }
 
+    /**
+     * Handle click on one of the grid buttons
+     * Reads the row and column from the button and passes them on
+     *
+     * @param button MouseButton used
+     * @param square Button clicked
+     */
+    private void handleSquareClick(MouseButton button, Button square) {
+        int[] coords = (int[]) square.getUserData();
+        handleCellClick(button, coords[0], coords[1]);
+    }
+
     /**
      * Handle cell click based on mouse button
      * Calls appropriate method for left or right click
      * 
      * @param button MouseButton used
-     * @param square Button clicked
+     * @param row Row index of the cell
+     * @param col Column index of the cell
      */
-    private void handleCellClick(MouseButton button, Button square) {
-        int[] coords = (int[]) square.getUserData();
-        int row = coords[0];
-        int col = coords[1];
+    private void handleCellClick(MouseButton button, int row, int col) {
+        clearHint();
         if (button == MouseButton.PRIMARY) {
-            handleLeftClick(square, row, col);
+            handleLeftClick(row, col);
         } else if (button == MouseButton.SECONDARY) {
-            handleRightClick(square, row, col);
+            handleRightClick(row, col);
         }
 
-        updateGameGrid();
+        updateGameGrid(game.getLastChanges());
 
         if (game.getGameStatus() == MineSweeperMessages.GAME_WON) {
             wonGame();
@@ -127,32 +215,53 @@ public class GameView {
     }
 
     /**
-     * Update the game grid buttons based on current game state
-     * Shows numbers, flags, bombs as needed
+     * Update the game grid buttons changed by the last move
+     * Only the listed cells are touched so a click costs the same on any board size
+     * @param changes cells changed by the last move
      */
-    private void updateGameGrid() {
-        for (int row = 0; row < game.getRows(); row++) {
-            for (int col = 0; col < game.getCols(); col++) {
-                MineSweeperMessages message = game.getNode(row, col); // Use row, col here
-                if (message == MineSweeperMessages.REVEALED_NODE || message == MineSweeperMessages.BOMB_AND_REVEALED) {
-                    buttonGrid[row][col].setDisable(true); // Disable button if revealed
-                }
-                if (message == MineSweeperMessages.EMPTY_NODE || message == MineSweeperMessages.BOMB_AND_HIDDEN) {
-                    buttonGrid[row][col].setText("");
-                    buttonGrid[row][col].setGraphic(null); // Remove any graphic
-                }
-                if (message == MineSweeperMessages.REVEALED_NODE) {
-                    buttonGrid[row][col].setGraphic(null); // Remove any graphic
-                    int bombsNearby = game.howManyBombsNearbyTile(row, col);
-                    putNumberOfMinesOnButton(buttonGrid[row][col], bombsNearby);
-                }
-                if (message == MineSweeperMessages.BOMB_AND_REVEALED) {
-                    putImageOnButton(buttonGrid[row][col], bombImage);
-                } else if (message == MineSweeperMessages.FLAGGED_NODE) {
-                    putImageOnButton(buttonGrid[row][col], flagImage);
-                }
+    private void updateGameGrid(CellChanges changes) {
+        EngineEvents.RenderPass event = new EngineEvents.RenderPass();
+        event.begin();
+        long start = EngineMetrics.start();
+        if (boardCanvas != null) {
+            boardCanvas.applyChanges(changes);
+        } else {
+            for (int i = 0; i < changes.size(); i++) {
+                Button square = buttonGrid[changes.getRow(i)][changes.getCol(i)];
+                updateSquare(square, changes.getState(i), changes.getBombsNearby(i));
             }
         }
+        EngineMetrics.RENDER_NANOS.recordSince(start);
+        if (event.shouldCommit()) {
+            event.cells = changes.size();
+            event.canvas = boardCanvas != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * Update a single button to show the state of its cell
+     * Shows numbers, flags, bombs as needed
+     * @param square Button to update
+     * @param message State of the cell
+     * @param bombsNearby Number of bombs next to the cell
+     */
+    private void updateSquare(Button square, MineSweeperMessages message, int bombsNearby) {
+        // Disable button if revealed, undo can hide it again
+        square.setDisable(message == MineSweeperMessages.REVEALED_NODE || message == MineSweeperMessages.BOMB_AND_REVEALED);
+        if (message == MineSweeperMessages.EMPTY_NODE || message == MineSweeperMessages.BOMB_AND_HIDDEN) {
+            square.setText("");
+            square.setGraphic(null); // Remove any graphic
+        }
+        if (message == MineSweeperMessages.REVEALED_NODE) {
+            square.setGraphic(null); // Remove any graphic
+            putNumberOfMinesOnButton(square, bombsNearby);
+        }
+        if (message == MineSweeperMessages.BOMB_AND_REVEALED) {
+            putImageOnButton(square, bombImage);
+        } else if (message == MineSweeperMessages.FLAGGED_NODE) {
+            putImageOnButton(square, flagImage);
+        }
     }
 
     /**
@@ -190,7 +299,7 @@ public class GameView {
      * @param number Number of mines
      * @return Color for the number of mines
      */
-    private Color getColorForNumber(int number) {
+    static Color getColorForNumber(int number) {
         return switch (number) {
             case 1 -> Color.BLUE;
             case 2 -> Color.GREEN;
@@ -208,14 +317,24 @@ public class GameView {
      * Handle left click on a square
      * If first click, start game and timer
      * If bomb clicked, end game
-     * @param square Button representing the square
      * @param row Row index of the square
      * @param col Column index of the square
      */
-    private void handleLeftClick(Button square, int row, int col) {
+    private void handleLeftClick(int row, int col) {
         if (firstClick) {
+            if (noGuess && !noGuessDealt) {
+                dealNoGuessBoard(row, col); // the click is made again once a board is dealt
+                return;
+            }
+            if (!restored) {
+                replayLog = new ReplayLog(game); // loaded games are not recorded, they do not start from move one
+                game.setReplayLog(replayLog);
+            }
             game.startGame(row, col); // Place bombs and calculate counts on first click
-            gameTimer.start(); // Start the timer on first click
+            history = new GameHistory(game);
+            gameTimer.follow(game.getClock()); // the game's clock starts with the game
+            boardCodeLabel.setText("Board: " + game.getBoardCode());
+            statusLabel.setText("Mines left: " + game.getNumberOfMinesLeft());
             firstClick = false;
         } else {
             // check if node is flagged and then ignore left click
@@ -223,6 +342,7 @@ public class GameView {
                 return;
             }
             MineSweeperMessages message = game.revealNode(row, col); // Use row, col here
+            history.record();
             if (message == MineSweeperMessages.BOMB_NODE) {
                 if (game.getGameStatus() == MineSweeperMessages.GAME_OVER) {
                     lostGame();
@@ -231,6 +351,244 @@ public class GameView {
         }
     }
 
+    /**
+     * Look for a board that can be solved without guessing from this first click, then make the click
+     * The search can take a couple of seconds, so it runs off the FX thread with the board disabled
+     * Very dense boards may have none, then the random board is kept and the player is told
+     * @param row Row of the first click
+     * @param col Column of the first click
+     */
+    private void dealNoGuessBoard(int row, int col) {
+        setBoardEnabled(false);
+        hintButton.setDisable(true);
+        instructionLabel.setText("Looking for a board that needs no guessing...");
+        NoGuessGenerator generator = new NoGuessGenerator(game.getRows(), game.getCols(), game.getMineCount());
+        CompletableFuture.supplyAsync(() -> generator.findSeed(row, col, NO_GUESS_TIMEOUT_MILLIS))
+                .whenComplete((seed, error) -> Platform.runLater(() -> finishNoGuessDeal(row, col, seed, error)));
+    }
+
+    /**
+     * Swap in the board the no-guess search found and make the first click on it
+     * @param row Row of the first click
+     * @param col Column of the first click
+     * @param seed seed of the board found, empty if none was found in time, null if the search failed
+     * @param error why the search failed, or null
+     */
+    private void finishNoGuessDeal(int row, int col, OptionalLong seed, Throwable error) {
+        if (instructionLabel.getScene() == null) {
+            return; // the player left this game while the search ran
+        }
+        noGuessDealt = true;
+        setBoardEnabled(true);
+        hintButton.setDisable(false);
+        if (error != null) {
+            // supplyAsync wraps the search's exception, which wraps what went wrong in a worker
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            instructionLabel.setText("The guess-free board search failed (" + cause + "), this one may need a guess.");
+        } else if (seed.isPresent()) {
+            game = new MineSweeper(game.getRows(), game.getCols(), game.getMineCount(), seed.getAsLong());
+            instructionLabel.setText("Welcome to MineSweeper! Left Click to Reveal, Right Click to Flag/Unflag.");
+        } else {
+            instructionLabel.setText("No guess-free board found for this size, this one may need a guess.");
+        }
+        handleCellClick(MouseButton.PRIMARY, row, col);
+    }
+
+    /**
+     * Let the player click the board or not, e.g. while a board is being dealt
+     * @param enabled true to accept clicks
+     */
+    private void setBoardEnabled(boolean enabled) {
+        if (boardCanvas != null) {
+            boardCanvas.setInteractive(enabled);
+        } else {
+            gameGrid.setDisable(!enabled);
+        }
+    }
+
+    /**
+     * Draw a loaded game and pick up where it was saved
+     * Restoring lists every revealed or flagged cell as changed, so one update draws the board
+     */
+    private void showRestoredGame() {
+        updateGameGrid(game.getLastChanges());
+        statusLabel.setText("Mines left: " + game.getNumberOfMinesLeft());
+        if (!game.isStarted()) {
+            return; // saved before the first click
+        }
+        firstClick = false;
+        history = new GameHistory(game);
+        if (game.getBoardCode() != null) {
+            boardCodeLabel.setText("Board: " + game.getBoardCode()); // none once a mine has been moved
+        }
+        gameTimer.follow(game.getClock());
+        if (game.getGameStatus() == MineSweeperMessages.GAME_ONGOING) {
+            return;
+        }
+        if (game.getGameStatus() == MineSweeperMessages.GAME_WON) {
+            wonGame();
+        } else {
+            lostGame();
+        }
+    }
+
+    /**
+     * Take a snapshot of the game being played so it can be saved
+     * @return snapshot of the game with the time played so far
+     */
+    public GameSnapshot getSnapshot() {
+        return game.toSnapshot();
+    }
+
+    /**
+     * Get the moves recorded so far so they can be saved as a replay
+     * @return replay log, or null before the first click and for loaded games
+     */
+    public ReplayLog getReplayLog() {
+        return replayLog;
+    }
+
+    /**
+     * Take back the last move, even the one that hit a mine
+     * Replays can't show undone moves, so recording stops at the first undo
+     */
+    public void undo() {
+        MineSweeperMessages before = game.getGameStatus();
+        if (history != null && history.undo()) {
+            showHistoryMove(before);
+        }
+    }
+
+    /**
+     * Make the last undone move again
+     */
+    public void redo() {
+        MineSweeperMessages before = game.getGameStatus();
+        if (history != null && history.redo()) {
+            showHistoryMove(before);
+        }
+    }
+
+    /**
+     * Draw the cells changed by an undo or redo and start or stop the game if it ended or came back
+     * @param before game status before the undo or redo
+     */
+    private void showHistoryMove(MineSweeperMessages before) {
+        clearHint();
+        game.setReplayLog(null);
+        updateGameGrid(game.getLastChanges());
+        statusLabel.setText("Mines left: " + game.getNumberOfMinesLeft());
+        MineSweeperMessages status = game.getGameStatus();
+        if (status == before) {
+            return;
+        }
+        if (status == MineSweeperMessages.GAME_WON) {
+            wonGame();
+        } else if (status == MineSweeperMessages.GAME_OVER) {
+            lostGame();
+        } else {
+            restartAfterUndo();
+        }
+    }
+
+    /**
+     * Let the player carry on after undoing the move that ended the game
+     * The game's clock carries on from where it stopped
+     */
+    private void restartAfterUndo() {
+        gameTimer.follow(game.getClock());
+        hintButton.setDisable(false);
+        instructionLabel.setText("Move undone, carry on.");
+        if (boardCanvas != null) {
+            boardCanvas.setInteractive(true);
+            return;
+        }
+        for (int row = 0; row < game.getRows(); row++) {
+            for (int col = 0; col < game.getCols(); col++) {
+                MineSweeperMessages state = game.getNode(row, col);
+                buttonGrid[row][col].setDisable(state == MineSweeperMessages.REVEALED_NODE
+                        || state == MineSweeperMessages.BOMB_AND_REVEALED);
+            }
+        }
+    }
+
+    /**
+     * Outline the hidden cell least likely to be a mine and show its chance
+     * Probabilities are worked out from what the player can see, trusting their flags
+     */
+    private void showHint() {
+        if (firstClick) {
+            instructionLabel.setText("Hint: the first click is always safe, click anywhere.");
+            return;
+        }
+        double[] probabilities;
+        try {
+            probabilities = probabilityCalculator.calculate(game);
+        } catch (IllegalStateException e) {
+            instructionLabel.setText("Hint: the numbers do not add up, one of your flags is wrong.");
+            return;
+        }
+        int cell = MineProbabilityCalculator.safestCell(game, probabilities);
+        if (cell == -1) {
+            return;
+        }
+        clearHint();
+        hintRow = cell / game.getCols();
+        hintCol = cell % game.getCols();
+        if (boardCanvas != null) {
+            boardCanvas.setHighlightedCell(hintRow, hintCol);
+        } else {
+            buttonGrid[hintRow][hintCol].getStyleClass().add("hint-square");
+        }
+        String chance = probabilities[cell] == 0 ? "is safe"
+                : String.format("has a %.1f%% chance of being a mine", probabilities[cell] * 100);
+        instructionLabel.setText("Hint: row " + (hintRow + 1) + ", column " + (hintCol + 1) + " " + chance
+                + (probabilityCalculator.isExact() ? "." : " (estimated)."));
+    }
+
+    /**
+     * Remove the outline left by the last hint
+     */
+    private void clearHint() {
+        if (hintRow == -1) {
+            return;
+        }
+        if (boardCanvas != null) {
+            boardCanvas.setHighlightedCell(-1, -1);
+        } else {
+            buttonGrid[hintRow][hintCol].getStyleClass().remove("hint-square");
+        }
+        hintRow = -1;
+        hintCol = -1;
+    }
+
+    /**
+     * Pause or resume the game's clock, e.g. while the window is minimised
+     * Only a game in progress has a running clock to pause
+     * @param paused true to pause, false to carry on
+     */
+    public void setPaused(boolean paused) {
+        if (firstClick || game.getGameStatus() != MineSweeperMessages.GAME_ONGOING) {
+            return;
+        }
+        if (paused) {
+            game.getClock().pause();
+        } else {
+            game.getClock().resume();
+        }
+    }
+
+    /**
+     * Get the code of the board being played so it can be shared
+     * @return board code, or null before the first click
+     */
+    public BoardCode getBoardCode() {
+        return game.getBoardCode();
+    }
+
     /**
      * Handle losing the game
      * Stop timer, disable all buttons, show message
@@ -255,8 +613,13 @@ public class GameView {
      */
     private void stopGame() {
         gameTimer.stop();
+        hintButton.setDisable(true);
         // Disable all buttons
-        updateGameGrid();
+        updateGameGrid(game.getLastChanges());
+        if (boardCanvas != null) {
+            boardCanvas.setInteractive(false);
+            return;
+        }
         for (int row = 0; row < game.getRows(); row++) {
             for (int col = 0; col < game.getCols(); col++) {
                 buttonGrid[row][col].setDisable(true);
@@ -267,12 +630,14 @@ public class GameView {
     /**
      * Handle right click on a square to flag/unflag
      * Update mines left count
-     * @param square Button representing the square
      * @param row Row index of the square
      * @param col Column index of the square
      */
-    private void handleRightClick(Button square, int row, int col) {
+    private void handleRightClick(int row, int col) {
         MineSweeperMessages message = game.flagNode(row, col);
+        if (history != null) {
+            history.record();
+        }
         statusLabel.setText("Mines left: " + game.getNumberOfMinesLeft());
         
     }
@@ -0,0 +1,176 @@
+/**
+ * Console game on an InfiniteMineSweeper board, reached with Main --infinite.
+ * Only a window of the board is drawn, centred on the last cell played. The view follows the
+ * player's moves and can be moved with V. Cells are given as a signed row and column,
+ * the game starts at 0 0. There is no win, the score is the number of cells revealed.
+ * Moves are read from standard input, so a game can be piped in as well as typed.
+ */
+public class InfiniteFrontEnd extends BaseTextProgram {
+    private static final int VIEW_ROWS = 20;
+    private static final int VIEW_COLS = 40;
+    private static final double DEFAULT_DENSITY = 0.2;
+
+    private final InfiniteMineSweeper game;
+    private int viewRow; // cell shown in the middle of the view
+    private int viewCol;
+    private String status; // result of the last action, shown under the board
+
+    /**
+     * Constructor for InfiniteFrontEnd.
+     * @param game the board to play, not started yet
+     */
+    public InfiniteFrontEnd(InfiniteMineSweeper game) {
+        this.game = game;
+    }
+
+    /**
+     * Command line entry, reached with Main --infinite.
+     * Takes --seed and --density (between 0.15 and 0.9, 0.2 by default).
+     * @param args options as name value pairs
+     */
+    public static void main(String[] args) {
+        long seed = System.nanoTime();
+        double density = DEFAULT_DENSITY;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--density" -> density = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        new InfiniteFrontEnd(new InfiniteMineSweeper(seed, density)).play();
+    }
+
+    /**
+     * Starts the game at the origin and plays until a mine is hit or the player quits.
+     */
+    public void play() {
+        print("Welcome to Infinite MineSweeper! Board seed: " + game.getSeed());
+        game.startGame();
+        status = "R reveals, F flags, V moves the view, Q quits. Give cells as row then column, e.g. 0 0 or -12 40.";
+        while (game.getGameStatus() == MineSweeperMessages.GAME_ONGOING) {
+            printGrid();
+            if (status != null) {
+                print(status);
+                status = null;
+            }
+            String action = getAction();
+            if (action.equals("Q")) {
+                break;
+            }
+            int[] rowCol = askCell();
+            switch (action) {
+                case "R" -> reveal(rowCol[0], rowCol[1]);
+                case "F" -> flag(rowCol[0], rowCol[1]);
+                case "V" -> {
+                    viewRow = rowCol[0];
+                    viewCol = rowCol[1];
+                }
+            }
+        }
+        printGrid();
+        if (game.getGameStatus() == MineSweeperMessages.GAME_OVER) {
+            print("Game Over! You hit a bomb.");
+        }
+        print("Cells revealed: " + game.getRevealedNodes());
+        print("Board seed: " + game.getSeed());
+    }
+
+    private void reveal(int row, int col) {
+        MineSweeperMessages message = game.revealNode(row, col);
+        ensureVisible(row, col);
+        if (message == MineSweeperMessages.REVEALED_NODE) {
+            status = "Node is already revealed.";
+        } else if (message == MineSweeperMessages.NODE_NOW_REVEALED) {
+            status = "Node at (" + row + ", " + col + ") revealed. Bombs nearby: " + game.howManyBombsNearbyTile(row, col);
+        }
+    }
+
+    private void flag(int row, int col) {
+        MineSweeperMessages message = game.flagNode(row, col);
+        ensureVisible(row, col);
+        if (message == MineSweeperMessages.REVEALED_NODE) {
+            status = "Node is already revealed. Cannot flag.";
+        } else if (message == MineSweeperMessages.FLAGGED_NODE) {
+            status = "Node at (" + row + ", " + col + ") flagged.";
+        } else {
+            status = "Node at (" + row + ", " + col + ") unflagged.";
+        }
+    }
+
+    /**
+     * Centres the view on a cell if it is outside the view.
+     */
+    private void ensureVisible(int row, int col) {
+        if (Math.abs((long) row - viewRow) > VIEW_ROWS / 2 - 1 || Math.abs((long) col - viewCol) > VIEW_COLS / 2 - 1) {
+            viewRow = row;
+            viewCol = col;
+        }
+    }
+
+    private String getAction() {
+        String[] validActions = {"R", "F", "V", "Q"};
+        String input = inputString("Enter your action (R reveal, F flag, V view, Q quit): ").trim().toUpperCase();
+        while (!isStringInArray(validActions, input)) {
+            print("Invalid action. Please enter R, F, V or Q.");
+            input = inputString("Enter your action (R reveal, F flag, V view, Q quit): ").trim().toUpperCase();
+        }
+        return input;
+    }
+
+    /**
+     * Asks for a cell until a valid one is given.
+     * @return an array containing the row at index 0 and the column at index 1
+     */
+    private int[] askCell() {
+        while (true) {
+            String[] parts = inputString("Enter the row and column of the node (e.g., 0 0): ").trim().split("[\\s,]+");
+            if (parts.length == 2 && isValidInteger(parts[0]) && isValidInteger(parts[1])) {
+                try {
+                    return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+                } catch (NumberFormatException e) {
+                    // too large for an int, asked again below
+                }
+            }
+            print("Invalid cell. Please enter a row and a column, e.g. 3 -7.");
+        }
+    }
+
+    /**
+     * Prints the window of the board around the view centre, with row numbers down the side
+     * and the last digit of each column along the top.
+     */
+    public void printGrid() {
+        int firstRow = viewRow - VIEW_ROWS / 2;
+        int firstCol = viewCol - VIEW_COLS / 2;
+        StringBuilder frame = new StringBuilder((VIEW_ROWS + 2) * (VIEW_COLS + 12));
+        frame.append("Columns ").append(firstCol).append(" to ").append(firstCol + VIEW_COLS - 1)
+                .append(", cells revealed: ").append(game.getRevealedNodes()).append('\n');
+        frame.append("        ");
+        for (int col = firstCol; col < firstCol + VIEW_COLS; col++) {
+            frame.append((char) ('0' + Math.floorMod(col, 10)));
+        }
+        frame.append('\n');
+        for (int row = firstRow; row < firstRow + VIEW_ROWS; row++) {
+            frame.append(String.format("%7d ", row));
+            for (int col = firstCol; col < firstCol + VIEW_COLS; col++) {
+                frame.append(symbol(row, col));
+            }
+            frame.append('\n');
+        }
+        System.out.print(frame);
+    }
+
+    private char symbol(int row, int col) {
+        MineSweeperMessages state = game.getNode(row, col);
+        if (state == MineSweeperMessages.BOMB_AND_REVEALED) {
+            return 'B';
+        } else if (state == MineSweeperMessages.FLAGGED_NODE) {
+            return 'F';
+        } else if (state == MineSweeperMessages.REVEALED_NODE) {
+            return (char) ('0' + game.howManyBombsNearbyTile(row, col));
+        }
+        return '.';
+    }
+}
@@ -0,0 +1,286 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * MineSweeper on a board with no edges.
+ * The board is split into MineChunks that are only made when a reveal, flag or nearby count
+ * reaches them, so memory grows with the explored area instead of the board size.
+ * Chunks the player has not touched are dropped when too many are loaded, they come back
+ * exactly the same because their mines are derived from the seed.
+ * Coordinates can be negative, the game starts at (0, 0) which is always safe.
+ */
+public class InfiniteMineSweeper {
+    // below this density empty areas can join up forever and a single reveal would never finish
+    public static final double MIN_DENSITY = 0.15;
+    public static final double MAX_DENSITY = 0.9;
+    private static final int DEFAULT_MAX_LOADED_CHUNKS = 4096;
+
+    private final long seed;
+    private final double density;
+    private final Map<Long, MineChunk> chunks;
+    private final int maxLoadedChunks;
+    private long[] floodFillStack; // packed (row, col) pairs, grown when needed and reused
+    private long lastChunkKey; // one entry cache in front of the map, flood fill mostly stays in a chunk
+    private MineChunk lastChunk;
+    private long revealedNodes;
+    private int numberOfFlags;
+    private MineSweeperMessages gameStatus;
+
+    /**
+     * Constructor for InfiniteMineSweeper.
+     * @param seed seed the whole board is derived from
+     * @param density chance of each cell holding a mine, between MIN_DENSITY and MAX_DENSITY
+     */
+    public InfiniteMineSweeper(long seed, double density) {
+        this(seed, density, DEFAULT_MAX_LOADED_CHUNKS);
+    }
+
+    /**
+     * Constructor for InfiniteMineSweeper.
+     * @param seed seed the whole board is derived from
+     * @param density chance of each cell holding a mine, between MIN_DENSITY and MAX_DENSITY
+     * @param maxLoadedChunks number of loaded chunks above which untouched chunks are dropped
+     */
+    public InfiniteMineSweeper(long seed, double density, int maxLoadedChunks) {
+        if (density < MIN_DENSITY || density > MAX_DENSITY) {
+            throw new IllegalArgumentException("Density must be between " + MIN_DENSITY + " and " + MAX_DENSITY);
+        }
+        if (maxLoadedChunks < 1) {
+            throw new IllegalArgumentException("At least one chunk must be allowed");
+        }
+        this.seed = seed;
+        this.density = density;
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.chunks = new HashMap<>();
+        this.floodFillStack = new long[256];
+        this.gameStatus = MineSweeperMessages.GAME_ONGOING;
+    }
+
+    /**
+     * Starts the game by revealing the origin, which is always surrounded by safe cells.
+     */
+    public void startGame() {
+        revealNode(0, 0);
+    }
+
+    /**
+     * Reveals a node at the specified coordinates.
+     * @param row row, may be negative
+     * @param col column, may be negative
+     * @return the status of the node, same messages as MineSweeper.revealNode
+     */
+    public MineSweeperMessages revealNode(int row, int col) {
+        MineChunk chunk = getChunk(row, col);
+        int local = MineChunk.localIndex(row, col);
+        boolean bomb = chunk.isMine(local);
+        if ((chunk.getState(local) & MineGrid.REVEALED_BIT) != 0) {
+            return bomb ? MineSweeperMessages.BOMB_AND_REVEALED : MineSweeperMessages.REVEALED_NODE;
+        }
+        if (bomb) {
+            chunk.setState(local, chunk.getState(local) | MineGrid.REVEALED_BIT);
+            gameStatus = MineSweeperMessages.GAME_OVER; // an infinite board can only be lost
+            return MineSweeperMessages.BOMB_NODE;
+        }
+        floodFill(row, col);
+        evictColdChunksIfNeeded();
+        return MineSweeperMessages.NODE_NOW_REVEALED;
+    }
+
+    /**
+     * Toggles the flag of a node at the specified coordinates.
+     * @param row row, may be negative
+     * @param col column, may be negative
+     * @return the status of the node after flagging
+     */
+    public MineSweeperMessages flagNode(int row, int col) {
+        MineChunk chunk = getChunk(row, col);
+        int local = MineChunk.localIndex(row, col);
+        int state = chunk.getState(local);
+        if ((state & MineGrid.REVEALED_BIT) != 0) {
+            return MineSweeperMessages.REVEALED_NODE; // Cannot flag a revealed node
+        }
+        chunk.setState(local, state ^ MineGrid.FLAGGED_BIT);
+        if ((state & MineGrid.FLAGGED_BIT) == 0) {
+            numberOfFlags++;
+            return MineSweeperMessages.FLAGGED_NODE;
+        }
+        numberOfFlags--;
+        return MineSweeperMessages.UNFLAGGED_NODE;
+    }
+
+    /**
+     * Gets the state of the node at the specified coordinates.
+     * @param row row, may be negative
+     * @param col column, may be negative
+     * @return the state of the node, same messages as MineSweeper.getNode
+     */
+    public MineSweeperMessages getNode(int row, int col) {
+        MineChunk chunk = getChunk(row, col);
+        int local = MineChunk.localIndex(row, col);
+        int cell = chunk.getState(local) | (chunk.isMine(local) ? MineGrid.BOMB_BIT : 0);
+        return MineSweeper.stateOf(cell);
+    }
+
+    /**
+     * Counts how many bombs are nearby a specific tile.
+     * @param row the row of the tile
+     * @param col the column of the tile
+     * @return the number of bombs nearby the specified tile
+     */
+    public int howManyBombsNearbyTile(int row, int col) {
+        int bombsNearby = 0;
+        for (int i = row - 1; i <= row + 1; i++) {
+            for (int j = col - 1; j <= col + 1; j++) {
+                if ((i != row || j != col) && getChunk(i, j).isMine(MineChunk.localIndex(i, j))) {
+                    bombsNearby++;
+                }
+            }
+        }
+        return bombsNearby;
+    }
+
+    /**
+     * Flood fill that may run across any number of chunks, loading them as it reaches them.
+     * Nodes are revealed as they are pushed so each one is only pushed once.
+     * @param row starting row
+     * @param col starting column
+     */
+    private void floodFill(int row, int col) {
+        long[] stack = floodFillStack;
+        int top = 0;
+        revealSafeNode(row, col);
+        stack[top++] = pack(row, col);
+        while (top > 0) {
+            long current = stack[--top];
+            int currentRow = (int) (current >> 32);
+            int currentCol = (int) current;
+            int currentState = getChunk(currentRow, currentCol).getState(MineChunk.localIndex(currentRow, currentCol));
+            if ((currentState & MineGrid.COUNT_MASK) != 0) {
+                continue; // reveal node but does not flood fill further
+            }
+            for (int i = currentRow - 1; i <= currentRow + 1; i++) {
+                for (int j = currentCol - 1; j <= currentCol + 1; j++) {
+                    MineChunk chunk = getChunk(i, j);
+                    int local = MineChunk.localIndex(i, j);
+                    if ((chunk.getState(local) & MineGrid.REVEALED_BIT) != 0 || chunk.isMine(local)) {
+                        continue;
+                    }
+                    revealSafeNode(i, j);
+                    if (top == stack.length) {
+                        stack = java.util.Arrays.copyOf(stack, top * 2);
+                        floodFillStack = stack;
+                    }
+                    stack[top++] = pack(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reveals a safe node and stores its nearby count with it.
+     * @param row row of the node
+     * @param col column of the node
+     */
+    private void revealSafeNode(int row, int col) {
+        int bombsNearby = howManyBombsNearbyTile(row, col);
+        MineChunk chunk = getChunk(row, col);
+        int local = MineChunk.localIndex(row, col);
+        chunk.setState(local, (chunk.getState(local) & ~MineGrid.COUNT_MASK) | MineGrid.REVEALED_BIT | bombsNearby);
+        revealedNodes++;
+    }
+
+    private static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the chunk holding a cell, making it if it is not loaded.
+     * @param row board row
+     * @param col board column
+     * @return the chunk the cell belongs to
+     */
+    private MineChunk getChunk(int row, int col) {
+        int chunkRow = row >> MineChunk.SHIFT; // arithmetic shift rounds down for negative cells too
+        int chunkCol = col >> MineChunk.SHIFT;
+        long key = pack(chunkRow, chunkCol);
+        if (lastChunk != null && key == lastChunkKey) {
+            return lastChunk;
+        }
+        MineChunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = new MineChunk(seed, chunkRow, chunkCol, density);
+            chunks.put(key, chunk);
+        }
+        lastChunkKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Drops untouched chunks once more than maxLoadedChunks are loaded.
+     */
+    private void evictColdChunksIfNeeded() {
+        if (chunks.size() > maxLoadedChunks) {
+            evictColdChunks();
+        }
+    }
+
+    /**
+     * Drops every chunk the player has not revealed or flagged anything in.
+     * They are made again, the same as before, if a later move reaches them.
+     * @return number of chunks dropped
+     */
+    public int evictColdChunks() {
+        int evicted = 0;
+        Iterator<MineChunk> iterator = chunks.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isCold()) {
+                iterator.remove();
+                evicted++;
+            }
+        }
+        lastChunk = null;
+        return evicted;
+    }
+
+    /**
+     * Gets the number of chunks currently held in memory.
+     * @return number of loaded chunks
+     */
+    public int getLoadedChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the number of safe nodes revealed so far, the score of an infinite game.
+     * @return number of revealed nodes
+     */
+    public long getRevealedNodes() {
+        return revealedNodes;
+    }
+
+    /**
+     * Gets the number of flags currently placed.
+     * @return number of flags
+     */
+    public int getNumberOfFlags() {
+        return numberOfFlags;
+    }
+
+    /**
+     * Gets the seed the board is derived from.
+     * @return seed of this board
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the status of the game.
+     * @return GAME_ONGOING until a bomb is revealed, then GAME_OVER
+     */
+    public MineSweeperMessages getGameStatus() {
+        return gameStatus;
+    }
+}
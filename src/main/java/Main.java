@@ -1,6 +1,36 @@
+import java.util.Arrays;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws java.io.IOException {
         //MineSweeperFrontEnd frontEnd = new MineSweeperFrontEnd();
+        if (args.length > 0 && args[0].equals("--simulate")) {
+            BotSimulation.main(Arrays.copyOfRange(args, 1, args.length)); // headless bot runs
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length)); // HTTP game sessions
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--stress")) {
+            SharedBoardStress.main(Arrays.copyOfRange(args, 1, args.length)); // shared board stress run
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--check-moves")) {
+            MoveMineCheck.main(Arrays.copyOfRange(args, 1, args.length)); // moveMine consistency check
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--check-hints")) {
+            ProbabilityCheck.main(Arrays.copyOfRange(args, 1, args.length)); // hint probabilities on large boards
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchFrontEnd.main(Arrays.copyOfRange(args, 1, args.length)); // scripted console games
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--infinite")) {
+            InfiniteFrontEnd.main(Arrays.copyOfRange(args, 1, args.length)); // console game on a board with no edges
+            return;
+        }
         MainGUI.launch(MainGUI.class, args);
     }
 }
\ No newline at end of file
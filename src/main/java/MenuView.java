@@ -1,5 +1,12 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.animation.AnimationTimer;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.Parent;
 import javafx.scene.control.Label;
@@ -14,17 +21,47 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Separator;
 import javafx.scene.control.Spinner;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
 
 public class MenuView {
+    // largest custom board, the same as a board code allows
+    private static final int MAX_GRID_SIZE = BoardCode.MAX_SIZE;
+    // the preview only shows the shape of the board, so it stops growing past this
+    private static final int MAX_PREVIEW_SIZE = 25;
+    // preview square size, gap between squares and padding around them, in pixels
+    private static final int PREVIEW_SQUARE = 25;
+    private static final int PREVIEW_GAP = 2;
+    private static final int PREVIEW_PADDING = 5;
+    // previews drawn so far by shown rows and columns, the least recently used is dropped first
+    private static final int MAX_CACHED_PREVIEWS = 8;
+    private static final Map<Integer, Image> PREVIEW_CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) {
+            return size() > MAX_CACHED_PREVIEWS;
+        }
+    };
 
     private final SceneManager manager;
 
-    private GridPane previewGrid;
+    private ImageView previewImage;
+    private boolean previewPending; // a render is booked for the next pulse
+    // renders the preview once on the next pulse, however many spinner changes came before it
+    private final AnimationTimer previewPulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            previewPending = false;
+            renderPreview();
+        }
+    };
     private HBox sizeBox;
     private HBox minesBox;
     private Spinner<Integer> rowsSpinner;
     private Spinner<Integer> colsSpinner;
     private Spinner<Integer> minesSpinner;
+    private CheckBox noGuessBox;
     private int gridRows;
     private int gridCols;
     private int mineCount;
@@ -80,9 +117,13 @@ public class MenuView {
         details.setHgap(10);
         details.setVgap(5);
 
-        rowsSpinner = new Spinner<>(5, 25, gridRows);
-        colsSpinner = new Spinner<>(5, 25, gridCols);
-        minesSpinner = new Spinner<>(1, 99, mineCount);
+        rowsSpinner = new Spinner<>(5, MAX_GRID_SIZE, gridRows);
+        colsSpinner = new Spinner<>(5, MAX_GRID_SIZE, gridCols);
+        minesSpinner = new Spinner<>(1, MAX_GRID_SIZE * MAX_GRID_SIZE, mineCount);
+        // typing is the only sane way to reach the larger sizes
+        rowsSpinner.setEditable(true);
+        colsSpinner.setEditable(true);
+        minesSpinner.setEditable(true);
 
         // add listeners to update preview on change
         rowsSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
@@ -94,8 +135,7 @@ public class MenuView {
             updatePreview();
         });
         minesSpinner.valueProperty().addListener((obs, oldValue, newValue) -> {
-            mineCount = newValue;
-            updatePreview();
+            mineCount = newValue; // the preview only shows the size, so it stays as it is
         });
 
         // disable spinners initially (until "Custom" is selected)
@@ -109,8 +149,12 @@ public class MenuView {
         sizeBox = new HBox(5, new Label("Size: " ), rowsSpinner, new Label("x"), colsSpinner);
         sizeBox.setAlignment(Pos.CENTER);
 
+        // boards that can be solved by logic alone, checked by the solver on the first click
+        noGuessBox = new CheckBox("No guessing");
+
         details.addRow(0, sizeBox);
         details.addRow(1, minesBox);
+        details.addRow(2, noGuessBox);
 
         // Wrap details in a StackPane to center it nicely
         StackPane detailsWrapper = new StackPane(details);
@@ -122,10 +166,8 @@ public class MenuView {
         detailsBox.setAlignment(Pos.CENTER);
 
         // === Preview Section ===
-        previewGrid = new GridPane();
-        previewGrid.getStyleClass().add("preview-grid");
-        updatePreview(); // initial preview
-        previewGrid.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        previewImage = new ImageView();
+        renderPreview(); // initial preview, straight away so the layout does not jump
 
         // === Start Button ===
         Button startBtn = new Button("Start Game");
@@ -150,7 +192,7 @@ public class MenuView {
 
         // preview grid in the middle alone to have it alligned nicely in the center
         VBox middleSection = new VBox(10,
-                previewGrid);
+                previewImage);
         middleSection.setAlignment(Pos.CENTER);
 
         VBox bottomSection = new VBox(20,
@@ -216,18 +258,56 @@ public class MenuView {
     }
 
     /**
-     * Update the preview grid to reflect current grid parameters
-     * Clears existing preview and repopulates based on gridRows and gridCols
+     * Ask for the preview to be updated to the current grid parameters
+     * Holding a spinner arrow changes the size many times a frame, so the preview is only
+     * rendered once on the next pulse, with whatever the size is by then
      */
     private void updatePreview() {
-        previewGrid.getChildren().clear();
-        for (int row = 0; row < gridRows; row++) {
-            for (int col = 0; col < gridCols; col++) {
-                Region square = new Region();
-                square.getStyleClass().add("square");
-                previewGrid.add(square, col, row);
+        if (!previewPending) {
+            previewPending = true;
+            previewPulse.start();
+        }
+    }
+
+    /**
+     * Show the preview for gridRows and gridCols, drawing it only if it is not cached
+     * Boards larger than MAX_PREVIEW_SIZE are shown cut down to that size
+     */
+    private void renderPreview() {
+        int previewRows = Math.min(gridRows, MAX_PREVIEW_SIZE);
+        int previewCols = Math.min(gridCols, MAX_PREVIEW_SIZE);
+        int key = previewRows * (MAX_PREVIEW_SIZE + 1) + previewCols;
+        Image image = PREVIEW_CACHE.get(key);
+        if (image == null) {
+            image = drawPreview(previewRows, previewCols);
+            PREVIEW_CACHE.put(key, image);
+        }
+        previewImage.setImage(image);
+    }
+
+    /**
+     * Draw an empty board of outlined squares onto a canvas and keep it as an image
+     * @param rows rows of squares
+     * @param cols columns of squares
+     * @return image of the preview
+     */
+    private static Image drawPreview(int rows, int cols) {
+        int step = PREVIEW_SQUARE + PREVIEW_GAP;
+        Canvas canvas = new Canvas(2 * PREVIEW_PADDING + cols * step - PREVIEW_GAP,
+                2 * PREVIEW_PADDING + rows * step - PREVIEW_GAP);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setStroke(Color.GRAY);
+        gc.setLineWidth(1);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                // half pixel in so the 1px outline lands on whole pixels
+                gc.strokeRect(PREVIEW_PADDING + col * step + 0.5, PREVIEW_PADDING + row * step + 0.5,
+                        PREVIEW_SQUARE - 1, PREVIEW_SQUARE - 1);
             }
         }
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(parameters, null);
     }
 
     /**
@@ -245,6 +325,6 @@ public class MenuView {
             alert.showAndWait();
             return;
         }
-        manager.showGame(gridRows, gridCols, mineCount);
+        manager.showGame(gridRows, gridCols, mineCount, noGuessBox.isSelected());
     }
 }
@@ -0,0 +1,104 @@
+import java.util.SplittableRandom;
+
+/**
+ * A fixed size square piece of an infinite board.
+ * The mines of a chunk are derived from the board seed and the chunk's coordinates, so a chunk
+ * can be thrown away and made again at any time as long as the player has not touched it.
+ * Revealed and flagged state is only allocated once the player reveals or flags a cell in it.
+ */
+public class MineChunk {
+    public static final int SIZE = 32; // cells per side
+    public static final int SHIFT = 5; // log2 of SIZE
+    private static final int MASK = SIZE - 1;
+
+    private final long[] mines; // one bit per cell, row-major
+    private byte[] state; // MineGrid style packed cells, null while the chunk is untouched
+
+    /**
+     * Creates the chunk at the given chunk coordinates.
+     * @param seed seed of the whole board
+     * @param chunkRow row of the chunk, cell row divided by SIZE
+     * @param chunkCol column of the chunk, cell column divided by SIZE
+     * @param density chance of each cell holding a mine
+     */
+    public MineChunk(long seed, int chunkRow, int chunkCol, double density) {
+        mines = new long[SIZE * SIZE / 64];
+        SplittableRandom random = new SplittableRandom(chunkSeed(seed, chunkRow, chunkCol));
+        for (int i = 0; i < SIZE * SIZE; i++) {
+            if (random.nextDouble() < density) {
+                mines[i >>> 6] |= 1L << i;
+            }
+        }
+        clearStartArea(chunkRow, chunkCol);
+    }
+
+    /**
+     * Mixes the board seed with the chunk coordinates so every chunk gets its own stream.
+     */
+    private static long chunkSeed(long seed, int chunkRow, int chunkCol) {
+        long key = ((long) chunkRow << 32) ^ (chunkCol & 0xFFFFFFFFL);
+        long z = seed + key * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Clears the cells of this chunk that fall in the 3x3 starting area around cell (0, 0).
+     * Only the four chunks touching the origin have any such cells.
+     */
+    private void clearStartArea(int chunkRow, int chunkCol) {
+        for (int row = -1; row <= 1; row++) {
+            for (int col = -1; col <= 1; col++) {
+                if ((row >> SHIFT) == chunkRow && (col >> SHIFT) == chunkCol) {
+                    int i = localIndex(row, col);
+                    mines[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a board cell to its index inside its chunk.
+     * @param row board row
+     * @param col board column
+     * @return index inside the chunk
+     */
+    public static int localIndex(int row, int col) {
+        return ((row & MASK) << SHIFT) | (col & MASK);
+    }
+
+    public boolean isMine(int localIndex) {
+        return (mines[localIndex >>> 6] & (1L << localIndex)) != 0;
+    }
+
+    /**
+     * Gets the packed state of a cell, see MineGrid for the layout. Mines are not included.
+     * @param localIndex index inside the chunk
+     * @return packed revealed / flagged / count bits
+     */
+    public int getState(int localIndex) {
+        return state == null ? 0 : state[localIndex];
+    }
+
+    /**
+     * Sets the packed state of a cell, allocating the state array on first use.
+     * @param localIndex index inside the chunk
+     * @param value packed revealed / flagged / count bits
+     */
+    public void setState(int localIndex, int value) {
+        if (state == null) {
+            state = new byte[SIZE * SIZE];
+        }
+        state[localIndex] = (byte) value;
+    }
+
+    /**
+     * Checks if the player has never revealed or flagged anything in this chunk.
+     * Such a chunk can be dropped, it is made again exactly the same when needed.
+     * @return true if the chunk holds no player state
+     */
+    public boolean isCold() {
+        return state == null;
+    }
+}
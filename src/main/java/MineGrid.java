@@ -1,13 +1,22 @@
 public class MineGrid {
-    private final Node[][] grid;
+    // Each cell is packed into one byte: low 4 bits hold the nearby bomb count (0-8),
+    // the remaining bits hold the bomb / revealed / flagged state.
+    public static final int COUNT_MASK = 0x0F;
+    public static final int BOMB_BIT = 0x10;
+    public static final int REVEALED_BIT = 0x20;
+    public static final int FLAGGED_BIT = 0x40;
+
+    private final byte[] cells;
     private int rows;
     private int cols;
 
     public MineGrid(int rows, int cols) {
         setRows(rows);
         setCols(cols);
-        this.grid = new Node[rows][cols];
-        initialiseGrid();
+        if ((long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grid is too large: " + rows + " x " + cols);
+        }
+        this.cells = new byte[rows * cols]; // row-major, all cells start hidden and empty
     }
 
     /**
@@ -30,17 +39,6 @@ public class MineGrid {
         this.cols = cols;
     }
 
-    /**
-     * Makes a blank grid of Nodes.
-     * */
-    private void initialiseGrid() {
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j] = new Node();
-            }
-        }
-    }
-
     /**
      * Return number of rows in the grid.
      */
@@ -63,13 +61,135 @@ public class MineGrid {
     }
 
     /**
-     * Returns the Node at the specified position.
+     * Returns the row-major index of the specified position.
+     * No bounds checks are done, callers are expected to check first.
+     */
+    public int indexOf(int row, int col) {
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the row of a row-major index.
+     */
+    public int rowOf(int index) {
+        return index / cols;
+    }
+
+    /**
+     * Returns the column of a row-major index.
+     */
+    public int colOf(int index) {
+        return index % cols;
+    }
+
+    /**
+     * Returns a lightweight Node view of the specified position.
+     * The view reads and writes straight through to the grid, so it is only meant for
+     * convenience code and not for loops over the whole board.
      */
     public Node getNode(int row, int col) {
         if (row < 0 || row >= rows || col < 0 || col >= cols) {
             throw new IndexOutOfBoundsException("Invalid grid position: (" + row + ", " + col + ")");
         }
-        return grid[row][col];
+        return new Node(this, indexOf(row, col));
+    }
+
+    /**
+     * Returns the raw packed byte of a cell.
+     */
+    public int getCell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Overwrites the raw packed byte of a cell.
+     */
+    public void setCell(int index, int value) {
+        cells[index] = (byte) value;
+    }
+
+    public boolean isBomb(int index) {
+        return (cells[index] & BOMB_BIT) != 0;
+    }
+
+    public void setBomb(int index, boolean isBomb) {
+        setBit(index, BOMB_BIT, isBomb);
+    }
+
+    public boolean isRevealed(int index) {
+        return (cells[index] & REVEALED_BIT) != 0;
+    }
+
+    public void setRevealed(int index, boolean isRevealed) {
+        setBit(index, REVEALED_BIT, isRevealed);
+    }
+
+    public boolean isFlagged(int index) {
+        return (cells[index] & FLAGGED_BIT) != 0;
+    }
+
+    public void setFlagged(int index, boolean isFlagged) {
+        setBit(index, FLAGGED_BIT, isFlagged);
+    }
+
+    public int getBombsNearby(int index) {
+        return cells[index] & COUNT_MASK;
+    }
+
+    public void setBombsNearby(int index, int bombsNearby) {
+        cells[index] = (byte) ((cells[index] & ~COUNT_MASK) | (bombsNearby & COUNT_MASK));
+    }
+
+    /**
+     * Puts a bomb on a cell and adds one to the nearby count of every cell around it.
+     * Counts are kept for bomb cells too, so bombs can later be moved or removed cheaply.
+     * Does nothing if the cell already holds a bomb.
+     */
+    public void placeBomb(int index) {
+        if (isBomb(index)) {
+            return;
+        }
+        setBomb(index, true);
+        adjustNearbyCounts(index, 1);
+    }
+
+    /**
+     * Takes a bomb off a cell and subtracts one from the nearby count of every cell around it.
+     * Does nothing if the cell has no bomb.
+     */
+    public void removeBomb(int index) {
+        if (!isBomb(index)) {
+            return;
+        }
+        setBomb(index, false);
+        adjustNearbyCounts(index, -1);
+    }
+
+    /**
+     * Adds delta to the nearby count of the up to 8 cells around a cell.
+     */
+    private void adjustNearbyCounts(int index, int delta) {
+        int row = index / cols;
+        int col = index - row * cols;
+        int lastRow = Math.min(row + 1, rows - 1);
+        int firstCol = Math.max(col - 1, 0);
+        int lastCol = Math.min(col + 1, cols - 1);
+        for (int i = Math.max(row - 1, 0); i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                int neighbour = i * cols + j;
+                if (neighbour != index) {
+                    cells[neighbour] = (byte) (cells[neighbour] + delta); // the count sits in the low bits and never leaves 0-8
+                }
+            }
+        }
+    }
+
+    private void setBit(int index, int bit, boolean value) {
+        if (value) {
+            cells[index] = (byte) (cells[index] | bit);
+        } else {
+            cells[index] = (byte) (cells[index] & ~bit);
+        }
     }
 
 }
@@ -0,0 +1,858 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Works out the chance of every hidden cell being a mine, from what the player can see.
+ * Hidden cells next to a revealed number (the frontier) are split into independent components,
+ * groups of cells that share no number with any other group. Each component is solved on its own
+ * by enumerating every mine layout that fits its numbers, counted by how many mines it uses.
+ * The components are then combined with the cells away from the frontier: a layout putting t mines
+ * on the frontier leaves getNumberOfMinesLeft() - t mines for the U other cells, which can happen in
+ * C(U, minesLeft - t) ways. Flags are trusted to be on mines, just like getNumberOfMinesLeft does.
+ * Component results are kept in a small cache, so asking again after a move only solves the
+ * components that move touched.
+ * A component too big to enumerate is estimated by random walks down the same search tree
+ * (Knuth's estimator) spread over all cores, which gives approximate counts. Each walk propagates
+ * the cells its choices force and backtracks out of dead ends, so it always finishes on a layout.
+ * Only an exact result can prove the board impossible, estimates fall back to approximate
+ * probabilities instead.
+ */
+public class MineProbabilityCalculator {
+    // search nodes allowed per component before falling back to sampling
+    private static final long ENUMERATION_BUDGET = 2_000_000;
+    // the search recurses once per cell, bigger components go straight to sampling
+    private static final int MAX_ENUMERATION_CELLS = 2000;
+    private static final int SAMPLES = 20_000; // random walks per sampled component, fewer for huge ones
+    private static final long SAMPLE_STEPS = 5_000_000; // cap on walks times cells, each walk goes through every cell
+    private static final int SAMPLE_CHUNKS = 16; // pieces the walks are split into for the parallel stream
+    private static final int CACHE_SIZE = 512;
+    private static final double LOG_2 = Math.log(2);
+
+    private static final byte HIDDEN = -1;
+    private static final byte FLAG = -2;
+
+    private final Map<ComponentKey, ComponentResult> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ComponentKey, ComponentResult> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+    private boolean lastResultExact = true;
+
+    /**
+     * Calculates the mine probability of every cell.
+     * @param game the game to look at
+     * @return probabilities in row-major order: 0 for revealed cells, 1 for flagged cells
+     * @throws IllegalStateException if there are more flags than mines, or the exact counts show that no
+     *                               mine layout fits the board, which means a flag is wrong
+     */
+    public double[] calculate(MineSweeper game) {
+        int minesLeft = game.getNumberOfMinesLeft();
+        if (minesLeft < 0) {
+            throw new IllegalStateException("More flags than mines, some flags must be wrong");
+        }
+        int rows = game.getRows();
+        int cols = game.getCols();
+        byte[] known = readBoard(game);
+        double[] probabilities = new double[known.length];
+        lastResultExact = true;
+
+        // every revealed number with hidden cells around it is a constraint, its hidden cells are the frontier
+        int[] frontierParent = new int[known.length]; // union-find over frontier cells, -1 elsewhere
+        Arrays.fill(frontierParent, -1);
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] < 0) {
+                continue;
+            }
+            int first = -1;
+            int row = index / cols;
+            int col = index - row * cols;
+            for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+                for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                    int neighbour = i * cols + j;
+                    if (known[neighbour] != HIDDEN) {
+                        continue;
+                    }
+                    if (frontierParent[neighbour] == -1) {
+                        frontierParent[neighbour] = neighbour;
+                    }
+                    if (first == -1) {
+                        first = neighbour;
+                    } else {
+                        union(frontierParent, first, neighbour);
+                    }
+                }
+            }
+        }
+
+        List<Component> components = new ArrayList<>();
+        int[] componentOf = new int[known.length];
+        Arrays.fill(componentOf, -1);
+        int otherCells = 0;
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] == HIDDEN && frontierParent[index] == -1) {
+                otherCells++;
+            } else if (frontierParent[index] != -1 && componentOf[find(frontierParent, index)] == -1) {
+                int root = find(frontierParent, index);
+                componentOf[root] = components.size();
+                components.add(buildComponent(known, rows, cols, index));
+            }
+        }
+
+        // solve (or look up) each component, then combine them with the rest of the board
+        ComponentResult[] results = new ComponentResult[components.size()];
+        int frontierCells = 0;
+        for (int i = 0; i < results.length; i++) {
+            Component component = components.get(i);
+            results[i] = cache.get(component.key);
+            if (results[i] == null) {
+                results[i] = solve(component);
+                cache.put(component.key, results[i]);
+            }
+            lastResultExact &= results[i].exact;
+            frontierCells += component.cells.length;
+        }
+        int maxFrontierMines = Math.min(minesLeft, frontierCells);
+        double[] outsideWeight = outsideWeights(otherCells, minesLeft, maxFrontierMines);
+
+        // prefix and suffix convolutions give, for each component, the mine count spread of all the others
+        double[][] prefix = new double[results.length + 1][];
+        double[][] suffix = new double[results.length + 1][];
+        prefix[0] = new double[] { 1 };
+        suffix[results.length] = new double[] { 1 };
+        for (int i = 0; i < results.length; i++) {
+            prefix[i + 1] = convolve(prefix[i], results[i].ways, maxFrontierMines);
+        }
+        for (int i = results.length - 1; i >= 0; i--) {
+            suffix[i] = convolve(suffix[i + 1], results[i].ways, maxFrontierMines);
+        }
+
+        for (int c = 0; c < results.length; c++) {
+            double[] others = convolve(prefix[c], suffix[c + 1], maxFrontierMines);
+            ComponentResult result = results[c];
+            int[] cells = components.get(c).cells;
+            double total = 0;
+            double[] mineWeight = new double[cells.length];
+            for (int k = 0; k < result.ways.length && k <= maxFrontierMines; k++) {
+                if (result.ways[k] == 0) {
+                    continue;
+                }
+                double weight = 0; // how likely the rest of the board is, given k mines in this component
+                for (int t = 0; t < others.length && k + t <= maxFrontierMines; t++) {
+                    weight += others[t] * outsideWeight[k + t];
+                }
+                total += result.ways[k] * weight;
+                for (int i = 0; i < cells.length; i++) {
+                    mineWeight[i] += result.cellMines[k][i] * weight;
+                }
+            }
+            if (total <= 0) {
+                return evenSpread(known, minesLeft); // throws unless some counts were only estimated
+            }
+            for (int i = 0; i < cells.length; i++) {
+                probabilities[cells[i]] = mineWeight[i] / total;
+            }
+        }
+
+        // cells away from the frontier all share the mines the frontier does not use
+        double[] all = prefix[results.length];
+        double total = 0;
+        double outsideMines = 0;
+        for (int t = 0; t < all.length; t++) {
+            total += all[t] * outsideWeight[t];
+            outsideMines += all[t] * outsideWeight[t] * (minesLeft - t);
+        }
+        if (total <= 0) {
+            return evenSpread(known, minesLeft);
+        }
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] == FLAG) {
+                probabilities[index] = 1;
+            } else if (known[index] == HIDDEN && frontierParent[index] == -1) {
+                probabilities[index] = outsideMines / total / otherCells;
+            }
+        }
+        return probabilities;
+    }
+
+    /**
+     * Fallback for when the estimated components can't be combined: the mines left are spread evenly
+     * over the hidden cells. Throws instead if every count was exact, as then no layout fits at all.
+     */
+    private double[] evenSpread(byte[] known, int minesLeft) {
+        if (lastResultExact) {
+            throw new IllegalStateException("No mine layout fits this board, a flag must be wrong");
+        }
+        int hidden = 0;
+        for (byte cell : known) {
+            if (cell == HIDDEN) {
+                hidden++;
+            }
+        }
+        double[] probabilities = new double[known.length];
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] == FLAG) {
+                probabilities[index] = 1;
+            } else if (known[index] == HIDDEN) {
+                probabilities[index] = Math.min(1, (double) minesLeft / hidden);
+            }
+        }
+        return probabilities;
+    }
+
+    /**
+     * Checks if the last calculation was exact, or used sampling for at least one component.
+     * @return true if every component was fully enumerated
+     */
+    public boolean isExact() {
+        return lastResultExact;
+    }
+
+    /**
+     * Picks the hidden, unflagged cell least likely to hold a mine.
+     * @param game the game the probabilities belong to
+     * @param probabilities result of calculate
+     * @return row-major index of the safest cell, or -1 if no hidden cell is left
+     */
+    public static int safestCell(MineSweeper game, double[] probabilities) {
+        int best = -1;
+        for (int index = 0; index < probabilities.length; index++) {
+            int row = index / game.getCols();
+            int col = index % game.getCols();
+            MineSweeperMessages state = game.getNode(row, col);
+            if (state != MineSweeperMessages.EMPTY_NODE && state != MineSweeperMessages.BOMB_AND_HIDDEN) {
+                continue;
+            }
+            if (best == -1 || probabilities[index] < probabilities[best]) {
+                best = index;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reads the board as the player sees it: numbers, flags and hidden cells.
+     */
+    private static byte[] readBoard(MineSweeper game) {
+        byte[] known = new byte[game.getRows() * game.getCols()];
+        for (int row = 0; row < game.getRows(); row++) {
+            for (int col = 0; col < game.getCols(); col++) {
+                MineSweeperMessages state = game.getNode(row, col);
+                int index = row * game.getCols() + col;
+                if (state == MineSweeperMessages.REVEALED_NODE) {
+                    known[index] = (byte) game.howManyBombsNearbyTile(row, col);
+                } else if (state == MineSweeperMessages.FLAGGED_NODE) {
+                    known[index] = FLAG;
+                } else {
+                    known[index] = HIDDEN;
+                }
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Collects one component starting from any of its cells, in breadth first order over shared numbers
+     * so the enumeration closes numbers early and prunes well.
+     */
+    private static Component buildComponent(byte[] known, int rows, int cols, int start) {
+        Map<Integer, Integer> localCell = new LinkedHashMap<>();
+        Map<Integer, Integer> localConstraint = new LinkedHashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        localCell.put(start, 0);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int row = cell / cols;
+            int col = cell - row * cols;
+            for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+                for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                    int number = i * cols + j;
+                    if (known[number] < 0 || localConstraint.containsKey(number)) {
+                        continue;
+                    }
+                    localConstraint.put(number, localConstraint.size());
+                    for (int a = Math.max(i - 1, 0); a <= Math.min(i + 1, rows - 1); a++) {
+                        for (int b = Math.max(j - 1, 0); b <= Math.min(j + 1, cols - 1); b++) {
+                            int neighbour = a * cols + b;
+                            if (known[neighbour] == HIDDEN && !localCell.containsKey(neighbour)) {
+                                localCell.put(neighbour, localCell.size());
+                                queue.add(neighbour);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Component component = new Component();
+        component.cells = localCell.keySet().stream().mapToInt(Integer::intValue).toArray();
+        int constraints = localConstraint.size();
+        component.need = new int[constraints];
+        component.members = new int[constraints][];
+        int[] cellConstraintCount = new int[component.cells.length];
+        int[] key = new int[1 + component.cells.length + 2 * constraints];
+        key[0] = component.cells.length;
+        int[] sortedCells = component.cells.clone();
+        Arrays.sort(sortedCells);
+        System.arraycopy(sortedCells, 0, key, 1, sortedCells.length);
+        long[] sortedConstraints = new long[constraints];
+        int c = 0;
+        for (int number : localConstraint.keySet()) {
+            int row = number / cols;
+            int col = number - row * cols;
+            int flags = 0;
+            int[] members = new int[8];
+            int size = 0;
+            for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+                for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                    int neighbour = i * cols + j;
+                    if (known[neighbour] == FLAG) {
+                        flags++;
+                    } else if (known[neighbour] == HIDDEN) {
+                        int local = localCell.get(neighbour);
+                        members[size++] = local;
+                        cellConstraintCount[local]++;
+                    }
+                }
+            }
+            component.need[c] = known[number] - flags;
+            component.members[c] = Arrays.copyOf(members, size);
+            sortedConstraints[c] = ((long) number << 8) | (component.need[c] & 0xFF);
+            c++;
+        }
+        // the hidden cells and the numbers with what they still need fully describe a component
+        Arrays.sort(sortedConstraints);
+        for (int i = 0; i < constraints; i++) {
+            key[1 + sortedCells.length + 2 * i] = (int) (sortedConstraints[i] >> 8);
+            key[2 + sortedCells.length + 2 * i] = (int) (sortedConstraints[i] & 0xFF);
+        }
+        component.key = new ComponentKey(key);
+
+        component.cellConstraints = new int[component.cells.length][];
+        for (int i = 0; i < component.cells.length; i++) {
+            component.cellConstraints[i] = new int[cellConstraintCount[i]];
+            cellConstraintCount[i] = 0;
+        }
+        for (int i = 0; i < constraints; i++) {
+            for (int member : component.members[i]) {
+                component.cellConstraints[member][cellConstraintCount[member]++] = i;
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Enumerates a component, or samples it if the enumeration runs past its budget.
+     */
+    private static ComponentResult solve(Component component) {
+        Enumeration enumeration = new Enumeration(component);
+        if (component.cells.length <= MAX_ENUMERATION_CELLS && enumeration.run(0, 0)) {
+            return enumeration.result.normalised(true);
+        }
+        return sample(component);
+    }
+
+    /**
+     * Estimates a component's counts with random walks down the enumeration tree.
+     * At every cell the walk picks one of the values that still fit and multiplies its weight by the
+     * number of values it could have picked, so a finished walk stands for that many layouts.
+     * Weights are kept as logarithms, a walk over a big component makes far more than 1023 choices.
+     * The walks are split into chunks with their own random streams and run on a parallel stream,
+     * then added up in chunk order, so the same component always gives the same estimate.
+     * If no walk finds a layout the cells are treated as unconstrained, an estimate is never taken
+     * as proof that the board is impossible.
+     */
+    private static ComponentResult sample(Component component) {
+        SplittableRandom seeds = new SplittableRandom(component.key.hashCode());
+        SplittableRandom[] randoms = new SplittableRandom[SAMPLE_CHUNKS];
+        for (int i = 0; i < SAMPLE_CHUNKS; i++) {
+            randoms[i] = seeds.split();
+        }
+        int walks = (int) Math.max(SAMPLE_CHUNKS, Math.min(SAMPLES, SAMPLE_STEPS / component.cells.length));
+        ComponentResult[] chunks = IntStream.range(0, SAMPLE_CHUNKS).parallel()
+                .mapToObj(i -> new Enumeration(component).sample(randoms[i], walks / SAMPLE_CHUNKS))
+                .toArray(ComponentResult[]::new);
+        ComponentResult total = new ComponentResult(component.cells.length);
+        for (ComponentResult chunk : chunks) {
+            total.add(chunk);
+        }
+        if (total.logScale == Double.NEGATIVE_INFINITY) {
+            return unconstrained(component.cells.length);
+        }
+        return total.normalised(false);
+    }
+
+    /**
+     * Counts for cells with no numbers at all, C(n, k) layouts with k mines, each cell a mine in k / n of them.
+     */
+    private static ComponentResult unconstrained(int cells) {
+        ComponentResult result = new ComponentResult(cells);
+        result.logScale = 0;
+        double[] logWays = new double[cells + 1];
+        double max = 0;
+        for (int k = 1; k <= cells; k++) {
+            logWays[k] = logWays[k - 1] + Math.log(cells - k + 1) - Math.log(k);
+            max = Math.max(max, logWays[k]);
+        }
+        for (int k = 0; k <= cells; k++) {
+            result.ways[k] = Math.exp(logWays[k] - max);
+            result.cellMines[k] = new double[cells];
+            Arrays.fill(result.cellMines[k], result.ways[k] * k / cells);
+        }
+        result.exact = false;
+        return result;
+    }
+
+    /**
+     * Relative number of ways to place the mines left over by the frontier on the other cells.
+     * @param otherCells hidden cells away from the frontier (U)
+     * @param minesLeft mines not yet flagged (M)
+     * @param maxFrontierMines largest number of mines the frontier can hold
+     * @return weight for t frontier mines, C(U, M - t) scaled so the largest is 1
+     */
+    private static double[] outsideWeights(int otherCells, int minesLeft, int maxFrontierMines) {
+        double[] logWays = new double[maxFrontierMines + 1];
+        Arrays.fill(logWays, Double.NEGATIVE_INFINITY);
+        // C(U, m + 1) = C(U, m) * (U - m) / (m + 1), only the ratios matter so start from 0
+        int lowest = minesLeft - maxFrontierMines;
+        double log = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int m = lowest; m <= Math.min(minesLeft, otherCells); m++) {
+            if (m > lowest) {
+                log += Math.log(otherCells - m + 1) - Math.log(m);
+            }
+            logWays[minesLeft - m] = log;
+            max = Math.max(max, log);
+        }
+        double[] weights = new double[logWays.length];
+        for (int t = 0; t < weights.length; t++) {
+            weights[t] = Math.exp(logWays[t] - max);
+        }
+        return weights;
+    }
+
+    /**
+     * Convolves two mine count spreads, dropping counts above limit.
+     * The result is scaled so its largest entry is 1, scaling never changes a probability as every
+     * cell's mine weight and the total it is divided by are scaled the same way.
+     */
+    private static double[] convolve(double[] a, double[] b, int limit) {
+        double[] result = new double[Math.min(a.length + b.length - 1, limit + 1)];
+        for (int i = 0; i < a.length && i <= limit; i++) {
+            if (a[i] == 0) {
+                continue;
+            }
+            for (int j = 0; j < b.length && i + j <= limit; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+        double max = 0;
+        for (double value : result) {
+            max = Math.max(max, value);
+        }
+        if (max > 0) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] /= max;
+            }
+        }
+        return result;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Frontier cells sharing numbers, in local indices.
+     */
+    private static final class Component {
+        int[] cells; // board index of each local cell
+        int[] need; // mines each number still needs among its hidden cells
+        int[][] members; // local cells of each number
+        int[][] cellConstraints; // numbers each local cell belongs to
+        ComponentKey key;
+    }
+
+    /**
+     * Layout counts of a component by number of mines.
+     */
+    private static final class ComponentResult {
+        double[] ways; // layouts using k mines, times e^-logScale
+        double[][] cellMines; // [k][cell] layouts using k mines with a mine on the cell, null rows for unused k
+        double logScale; // log of the factor every count is divided by, -infinity while nothing is counted
+        boolean exact;
+
+        ComponentResult(int cells) {
+            ways = new double[cells + 1];
+            cellMines = new double[cells + 1][];
+            logScale = Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Makes logScale at least the given value, dividing the counts to match, so adding a count of
+         * e^logWeight never overflows.
+         */
+        void scaleTo(double logWeight) {
+            if (logWeight <= logScale) {
+                return;
+            }
+            double factor = Math.exp(logScale - logWeight); // 0 while nothing is counted yet
+            for (int k = 0; k < ways.length; k++) {
+                ways[k] *= factor;
+                if (cellMines[k] != null) {
+                    for (int i = 0; i < cellMines[k].length; i++) {
+                        cellMines[k][i] *= factor;
+                    }
+                }
+            }
+            logScale = logWeight;
+        }
+
+        void add(ComponentResult other) {
+            if (other.logScale == Double.NEGATIVE_INFINITY) {
+                return;
+            }
+            scaleTo(other.logScale);
+            double factor = Math.exp(other.logScale - logScale);
+            for (int k = 0; k < ways.length; k++) {
+                ways[k] += other.ways[k] * factor;
+                if (other.cellMines[k] == null) {
+                    continue;
+                }
+                if (cellMines[k] == null) {
+                    cellMines[k] = new double[other.cellMines[k].length];
+                }
+                for (int i = 0; i < cellMines[k].length; i++) {
+                    cellMines[k][i] += other.cellMines[k][i] * factor;
+                }
+            }
+        }
+
+        /**
+         * Scales the counts so the largest is 1, large components can have more layouts than a double holds
+         * once combined with others. Rows stay null for mine counts with no layouts.
+         */
+        ComponentResult normalised(boolean exact) {
+            this.exact = exact;
+            double max = 0;
+            for (double value : ways) {
+                max = Math.max(max, value);
+            }
+            if (max == 0) {
+                return this; // nothing fits, calculate reports it
+            }
+            for (int k = 0; k < ways.length; k++) {
+                if (cellMines[k] == null) {
+                    continue;
+                }
+                ways[k] /= max;
+                for (int i = 0; i < cellMines[k].length; i++) {
+                    cellMines[k][i] /= max;
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Working state for enumerating or sampling one component.
+     */
+    private static final class Enumeration {
+        private final Component component;
+        private final int[] remaining; // mines each number still needs
+        private final int[] unassigned; // cells of each number not given a value yet
+        private final boolean[] mine;
+        private final ComponentResult result;
+        private long nodes;
+        // used by sample only
+        private final boolean[] assigned;
+        private final int[] trail; // cells set by the walk, in order
+        private int trailSize;
+        private final int[] queue; // ring of numbers to check while propagating, each at most once at a time
+        private final boolean[] queued;
+
+        Enumeration(Component component) {
+            this.component = component;
+            this.remaining = component.need.clone();
+            this.unassigned = new int[component.need.length];
+            for (int i = 0; i < unassigned.length; i++) {
+                unassigned[i] = component.members[i].length;
+            }
+            this.mine = new boolean[component.cells.length];
+            this.result = new ComponentResult(component.cells.length);
+            this.assigned = new boolean[component.cells.length];
+            this.trail = new int[component.cells.length];
+            this.queue = new int[component.need.length];
+            this.queued = new boolean[component.need.length];
+        }
+
+        /**
+         * Depth first search over the cells in order.
+         * @return false if the node budget ran out
+         */
+        boolean run(int cell, int mines) {
+            if (++nodes > ENUMERATION_BUDGET) {
+                return false;
+            }
+            if (cell == mine.length) {
+                record(mines, 0);
+                return true;
+            }
+            for (int value = 0; value <= 1; value++) {
+                if (!fits(cell, value)) {
+                    continue;
+                }
+                assign(cell, value, 1);
+                boolean finished = run(cell + 1, mines + value);
+                assign(cell, value, -1);
+                if (!finished) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Runs random walks down the search tree, see MineProbabilityCalculator.sample.
+         * A walk picks one of the values of the next cell that fit its numbers and sets it with the cells
+         * it forces. If that breaks a number the other value is taken, and the choice counts as having
+         * had one value. When neither works the walk goes back to its last open choice in the same way.
+         * A walk that runs out of steps, or out of choices to go back to, counts for nothing.
+         */
+        ComponentResult sample(SplittableRandom random, int walks) {
+            int cells = mine.length;
+            int[] choiceCell = new int[cells];
+            int[] choiceTrail = new int[cells]; // trail size before the choice
+            int[] choiceOther = new int[cells]; // value not taken yet, -1 if there is none
+            double[] choiceLog = new double[cells]; // log weight before the choice
+            long stepLimit = 20L * cells + 1000; // caps backtracking on a pathological component
+            for (int walk = 0; walk < walks; walk++) {
+                double logWeight = 0;
+                int choices = 0;
+                int next = 0;
+                boolean finished = false;
+                for (long step = 0; step < stepLimit; step++) {
+                    while (next < cells && assigned[next]) {
+                        next++;
+                    }
+                    if (next == cells) {
+                        finished = true;
+                        break;
+                    }
+                    int mark = trailSize;
+                    boolean safeFits = fits(next, 0);
+                    boolean mineFits = fits(next, 1);
+                    int value = safeFits && mineFits ? random.nextInt(2) : (mineFits ? 1 : 0);
+                    int other = safeFits && mineFits ? 1 - value : -1;
+                    if (!safeFits && !mineFits) {
+                        value = -1;
+                    } else if (!propagate(next, value)) {
+                        undoTo(mark);
+                        value = other;
+                        other = -1;
+                        if (value >= 0 && !propagate(next, value)) {
+                            undoTo(mark);
+                            value = -1;
+                        }
+                    }
+                    if (value >= 0) {
+                        choiceCell[choices] = next;
+                        choiceTrail[choices] = mark;
+                        choiceOther[choices] = other;
+                        choiceLog[choices] = logWeight;
+                        choices++;
+                        if (other >= 0) {
+                            logWeight += LOG_2;
+                        }
+                        continue;
+                    }
+                    // dead end, go back to the last choice that had another value and take that one
+                    boolean resumed = false;
+                    while (choices > 0 && !resumed) {
+                        int c = --choices;
+                        if (choiceOther[c] < 0) {
+                            continue;
+                        }
+                        undoTo(choiceTrail[c]);
+                        logWeight = choiceLog[c];
+                        next = choiceCell[c];
+                        if (propagate(next, choiceOther[c])) {
+                            choiceOther[c] = -1;
+                            choices++;
+                            resumed = true;
+                        } else {
+                            undoTo(choiceTrail[c]);
+                        }
+                    }
+                    if (!resumed) {
+                        break;
+                    }
+                }
+                if (finished) {
+                    int mines = 0;
+                    for (boolean isMine : mine) {
+                        mines += isMine ? 1 : 0;
+                    }
+                    record(mines, logWeight);
+                }
+                undoTo(0);
+            }
+            return result;
+        }
+
+        /**
+         * Gives a cell a value and every cell that value forces in turn: all the hidden cells of a
+         * number that needs no more mines are safe, all of one that needs every one of them are mines.
+         * The cells set are left on the trail even on failure, undoTo takes them back.
+         * @return false if a number can no longer be met
+         */
+        private boolean propagate(int cell, int value) {
+            int head = 0;
+            int tail = 0;
+            set(cell, value);
+            for (int constraint : component.cellConstraints[cell]) {
+                if (!queued[constraint]) {
+                    queued[constraint] = true;
+                    queue[tail++ % queue.length] = constraint;
+                }
+            }
+            boolean fits = true;
+            while (head < tail) {
+                int constraint = queue[head++ % queue.length]; // a number is queued once at a time, so the ring never overfills
+                queued[constraint] = false;
+                if (!fits) {
+                    continue; // only emptying the queue
+                }
+                int left = remaining[constraint];
+                if (left < 0 || left > unassigned[constraint]) {
+                    fits = false;
+                    continue;
+                }
+                if (unassigned[constraint] == 0 || (left != 0 && left != unassigned[constraint])) {
+                    continue;
+                }
+                int forced = left == 0 ? 0 : 1;
+                for (int member : component.members[constraint]) {
+                    if (assigned[member]) {
+                        continue;
+                    }
+                    set(member, forced);
+                    for (int other : component.cellConstraints[member]) {
+                        if (!queued[other]) {
+                            queued[other] = true;
+                            queue[tail++ % queue.length] = other;
+                        }
+                    }
+                }
+            }
+            return fits;
+        }
+
+        private void set(int cell, int value) {
+            assigned[cell] = true;
+            mine[cell] = value == 1;
+            for (int constraint : component.cellConstraints[cell]) {
+                remaining[constraint] -= value;
+                unassigned[constraint]--;
+            }
+            trail[trailSize++] = cell;
+        }
+
+        /**
+         * Takes back the cells set since the trail had the given size.
+         */
+        private void undoTo(int size) {
+            while (trailSize > size) {
+                int cell = trail[--trailSize];
+                int value = mine[cell] ? 1 : 0;
+                for (int constraint : component.cellConstraints[cell]) {
+                    remaining[constraint] += value;
+                    unassigned[constraint]++;
+                }
+                assigned[cell] = false;
+                mine[cell] = false;
+            }
+        }
+
+        private boolean fits(int cell, int value) {
+            for (int constraint : component.cellConstraints[cell]) {
+                int left = remaining[constraint] - value;
+                if (left < 0 || left > unassigned[constraint] - 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gives a cell a value (direction 1) or takes it back (direction -1).
+         */
+        private void assign(int cell, int value, int direction) {
+            mine[cell] = direction > 0 && value == 1;
+            for (int constraint : component.cellConstraints[cell]) {
+                remaining[constraint] -= value * direction;
+                unassigned[constraint] -= direction;
+            }
+        }
+
+        /**
+         * Counts a finished layout e^logWeight times.
+         */
+        private void record(int mines, double logWeight) {
+            result.scaleTo(logWeight);
+            double weight = Math.exp(logWeight - result.logScale);
+            result.ways[mines] += weight;
+            if (result.cellMines[mines] == null) {
+                result.cellMines[mines] = new double[mine.length];
+            }
+            double[] row = result.cellMines[mines];
+            for (int i = 0; i < mine.length; i++) {
+                if (mine[i]) {
+                    row[i] += weight;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cache key for a component: its cells and its numbers with what they still need.
+     */
+    private static final class ComponentKey {
+        private final int[] key;
+        private final int hash;
+
+        ComponentKey(int[] key) {
+            this.key = key;
+            this.hash = Arrays.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ComponentKey that && Arrays.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,10 +1,25 @@
-import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 public class MineSweeper {
+    // actions for applyMoves, in the lowest bit of a packed move
+    public static final int MOVE_REVEAL = 0;
+    public static final int MOVE_FLAG = 1;
+
     private MineGrid mineGrid;
     private int mineCount;
     private int numberOfFlags;
+    private int unrevealedSafeNodes; // safe nodes still hidden, the game is won when this hits 0
+    private int[] workArray; // reused work stack for flood fill
     private MineSweeperMessages gameStatus;
+    private final CellChanges lastChanges; // cells changed by the last move
+    private final long seed; // the board is a function of seed, size, mine count and start
+    private int startRow = -1; // -1 until the game is started
+    private int startCol = -1;
+    private boolean fromSeed = true; // false once a mine is moved, the seed then no longer makes this board
+    private ReplayLog replayLog; // null unless moves are being recorded
+    private final GameClock clock = new GameClock(); // runs from startGame until the game is won or lost
+    private boolean instrumented = true; // emits JFR events and metrics, off for boards nobody plays
 
 
     /**
@@ -13,11 +28,63 @@ public class MineSweeper {
      * populates it with bombs, and calculates the number of nearby bombs for each node.
      * @param rows number of rows in the grid
      * @param cols number of columns in the grid
+     * @param mineCount number of mines, must leave at least one safe node
      */
     public MineSweeper(int rows, int cols, int mineCount) {
+        this(rows, cols, mineCount, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Constructor for MineSweeper with a fixed seed.
+     * Starting from the same cell always gives the same board for the same seed, size and mine count.
+     * @param rows number of rows in the grid
+     * @param cols number of columns in the grid
+     * @param mineCount number of mines, must leave at least one safe node
+     * @param seed seed for placing the mines
+     */
+    public MineSweeper(int rows, int cols, int mineCount, long seed) {
+        checkBoard(rows, cols, mineCount);
+        this.seed = seed;
         mineGrid = new MineGrid(rows, cols);
+        lastChanges = new CellChanges(cols);
         this.mineCount = mineCount;
         this.numberOfFlags = 0;
+        this.unrevealedSafeNodes = mineGrid.getSize() - mineCount;
+        this.gameStatus = MineSweeperMessages.GAME_ONGOING;
+    }
+
+    /**
+     * Checks the size and mine count of a board the same way the constructor does, without making it.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param mineCount number of mines
+     * @throws IllegalArgumentException if no game can have this board
+     */
+    static void checkBoard(int rows, int cols, int mineCount) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + rows + " x " + cols);
+        }
+        if (mineCount < 0 || mineCount >= rows * cols) {
+            throw new IllegalArgumentException("Mine count must be between 0 and " + (rows * cols - 1));
+        }
+    }
+
+    /**
+     * Checks a starting cell the same way startGame does, without making the board.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param mineCount number of mines
+     * @param startRow row of the first click
+     * @param startCol column of the first click
+     * @throws IllegalArgumentException if the game can't be started there
+     */
+    static void checkStart(int rows, int cols, int mineCount, int startRow, int startCol) {
+        if (startRow < 0 || startRow >= rows || startCol < 0 || startCol >= cols) {
+            throw new IllegalArgumentException("Coordinates out of bounds");
+        }
+        if (mineCount > countEligibleNodes(rows, cols, startRow, startCol)) {
+            throw new IllegalArgumentException("Too many mines to keep the starting area clear");
+        }
     }
 
     /**
@@ -26,13 +93,38 @@ public class MineSweeper {
      * @param startCols starting column for the game
      */
     public void startGame(int startRow, int startCols) {
+        checkStart(getRows(), getCols(), mineCount, startRow, startCols);
+        if (replayLog != null) {
+            replayLog.record(ReplayLog.START, mineGrid.indexOf(startRow, startCols));
+        }
+        EngineEvents.GameStart event = new EngineEvents.GameStart();
+        event.begin();
+        long start = EngineMetrics.start();
+        lastChanges.clear();
+        if (numberOfFlags > 0) {
+            recordClearedFlags(); // only a game restored from before its first click can have any
+        }
         this.numberOfFlags = 0;
+        this.unrevealedSafeNodes = mineGrid.getSize() - mineCount;
+        this.gameStatus = MineSweeperMessages.GAME_ONGOING;
+        clock.start();
         clearGrid(); // Clear the grid before starting a new game
-        revealNodesAroundStart(startRow, startCols); // Reveal nodes around the starting position
-        populateGridWithBombs(); // Randomly place bombs in the grid
-        hideNodesAroundStart(startRow, startCols); // Hide nodes around the starting position
-        calculateNearbyBombCounts(); // Update the grid with bomb counts
+        this.startRow = startRow;
+        this.startCol = startCols;
+        this.fromSeed = true;
+        populateGridWithBombs(startRow, startCols, new SplittableRandom(seed)); // Place bombs and their nearby counts
         floodFill(startRow, startCols); // Flood fill from the starting position
+        isGameWon(); // Tiny boards can be cleared by the first click
+        if (instrumented) {
+            EngineMetrics.START_NANOS.recordSince(start);
+        }
+        if (instrumented && event.shouldCommit()) {
+            event.rows = getRows();
+            event.cols = getCols();
+            event.mines = mineCount;
+            event.cellsRevealed = lastChanges.size();
+            event.commit();
+        }
         //System.out.println("Game started! Bombs placed and nearby counts calculated.");
     }
 
@@ -46,34 +138,133 @@ public class MineSweeper {
         if (isOutOfBounds(row, col)) {
             throw new IllegalArgumentException("Coordinates out of bounds");
         }
-        Node node = mineGrid.getNode(row, col);
-        if (node.isRevealed()) {
-            if (node.isBomb()){
+        int index = mineGrid.indexOf(row, col);
+        if (replayLog != null) {
+            replayLog.record(ReplayLog.REVEAL, index);
+        }
+        EngineEvents.Move event = new EngineEvents.Move();
+        event.begin();
+        long start = EngineMetrics.start();
+        lastChanges.clear();
+        MineSweeperMessages message = revealIndex(index);
+        if (message == MineSweeperMessages.NODE_NOW_REVEALED) {
+            isGameWon(); // Check if the game is won after revealing a node
+        }
+        if (instrumented) {
+            EngineMetrics.REVEAL_NANOS.recordSince(start);
+        }
+        commitMove(event, false, row, col, message);
+        return message;
+    }
+
+    /**
+     * Reveals a node by index without clearing the changes or checking for a win.
+     * Shared by revealNode and applyMoves.
+     * @param index index of the node
+     * @return the status of the node, as for revealNode
+     */
+    private MineSweeperMessages revealIndex(int index) {
+        if (mineGrid.isRevealed(index)) {
+            if (mineGrid.isBomb(index)){
                 return MineSweeperMessages.BOMB_AND_REVEALED; // Bomb already revealed
             }
             return MineSweeperMessages.REVEALED_NODE;
         }
-        if (node.isBomb()){
+        if (mineGrid.isBomb(index)){
             gameStatus = MineSweeperMessages.GAME_OVER;
-            node.setRevealed(true); // Reveal the bomb node
+            clock.pause();
+            mineGrid.setRevealed(index, true); // Reveal the bomb node
+            recordChange(index);
             revealAllOnLoss(); // Reveal all bombs when the game is lost
             return MineSweeperMessages.BOMB_NODE;
         }
-        floodFill(row, col); // Reveal surrounding nodes if the current node is not a bomb
-        isGameWon(); // Check if the game is won after revealing a node
+        floodFill(mineGrid.rowOf(index), mineGrid.colOf(index)); // Reveal surrounding nodes if the current node is not a bomb
         return MineSweeperMessages.NODE_NOW_REVEALED;
     }
 
+    /**
+     * Applies a batch of moves with one call, for bots making many moves at a time.
+     * Each move is packed as index << 1 | action, where index is row * cols + col and action is
+     * MOVE_REVEAL or MOVE_FLAG, see packMove. Every move is checked before any is applied, so a bad
+     * move leaves the game untouched. Moves are applied in order and the batch stops early when a
+     * bomb is revealed or the last safe node is. The changes of the whole batch are collected in
+     * getLastChanges, and the win is checked once at the end.
+     * @param moves packed moves
+     * @param count number of moves to take from the start of the array
+     * @param results filled with the ordinal of each applied move's MineSweeperMessages result
+     * @return number of moves applied, less than count if the game ended part way
+     */
+    public int applyMoves(int[] moves, int count, int[] results) {
+        if (count < 0 || count > moves.length || count > results.length) {
+            throw new IllegalArgumentException("Move count does not fit the arrays");
+        }
+        int size = mineGrid.getSize();
+        for (int i = 0; i < count; i++) {
+            if (moves[i] < 0 || (moves[i] >>> 1) >= size) {
+                throw new IllegalArgumentException("Move " + i + " is out of bounds");
+            }
+        }
+        EngineEvents.MoveBatch event = new EngineEvents.MoveBatch();
+        event.begin();
+        long start = EngineMetrics.start();
+        lastChanges.clear();
+        long millis = replayLog != null ? replayLog.millisNow() : 0; // one clock read for the whole batch
+        int applied = 0;
+        while (applied < count && gameStatus == MineSweeperMessages.GAME_ONGOING && unrevealedSafeNodes > 0) {
+            int move = moves[applied];
+            int index = move >>> 1;
+            if (replayLog != null) {
+                replayLog.record((move & 1) == MOVE_FLAG ? ReplayLog.FLAG : ReplayLog.REVEAL, index, millis);
+            }
+            MineSweeperMessages message = (move & 1) == MOVE_FLAG ? flagIndex(index) : revealIndex(index);
+            results[applied++] = message.ordinal();
+        }
+        if (gameStatus == MineSweeperMessages.GAME_ONGOING) {
+            isGameWon();
+        }
+        if (instrumented) {
+            EngineMetrics.BATCH_NANOS.recordSince(start);
+        }
+        if (instrumented && event.shouldCommit()) {
+            event.moves = count;
+            event.applied = applied;
+            event.cellsChanged = lastChanges.size();
+            event.commit();
+        }
+        return applied;
+    }
+
+    /**
+     * Applies a batch of moves, see applyMoves(int[], int, int[]).
+     * @param moves packed moves
+     * @return ordinal of each applied move's result, shorter than moves if the game ended part way
+     */
+    public int[] applyMoves(int[] moves) {
+        int[] results = new int[moves.length];
+        int applied = applyMoves(moves, moves.length, results);
+        return applied == results.length ? results : java.util.Arrays.copyOf(results, applied);
+    }
+
+    /**
+     * Packs a move for applyMoves.
+     * @param row row of the node
+     * @param col column of the node
+     * @param action MOVE_REVEAL or MOVE_FLAG
+     * @return the packed move
+     */
+    public int packMove(int row, int col, int action) {
+        return mineGrid.indexOf(row, col) << 1 | action;
+    }
+
     /**
      * Reveals all nodes in the grid when player lost.
      */
     private void revealAllOnLoss() {
-        for (int i = 0; i < mineGrid.getRows(); i++) {
-            for (int j = 0; j < mineGrid.getCols(); j++) {
-                Node node = mineGrid.getNode(i, j);
-                if (node.isBomb()) {
-                    node.setRevealed(true);
-                }
+        int size = mineGrid.getSize();
+        for (int i = 0; i < size; i++) {
+            if (mineGrid.isBomb(i) && !mineGrid.isRevealed(i)) {
+                mineGrid.setRevealed(i, true);
+                recordChange(i);
             }
         }
     }
@@ -82,33 +273,74 @@ public class MineSweeper {
      * Reveals all nodes in the grid.
      */
     private void revealAllOnWin() {
-        for (int i = 0; i < mineGrid.getRows(); i++) {
-            for (int j = 0; j < mineGrid.getCols(); j++) {
-                Node node = mineGrid.getNode(i, j);
-                if (node.isBomb()){
-                    node.setFlagged(true);
-                }
+        int size = mineGrid.getSize();
+        for (int i = 0; i < size; i++) {
+            if (mineGrid.isBomb(i) && !mineGrid.isFlagged(i)){
+                mineGrid.setFlagged(i, true);
+                numberOfFlags++; // counted like any flag, so a restored won game has the same count
+                recordChange(i);
             }
         }
     }
 
     /**
      * Toggles the flag of a node at the specified coordinates.
+     * Flags are refused until startGame, which places the mines on a fresh grid.
      * @param row row
      * @param col column
-     * @return the status of the node after flagging
+     * @return the status of the node after flagging, or INVALID_MOVE before the game is started
      */
     public MineSweeperMessages flagNode(int row, int col) {
         if (isOutOfBounds(row, col)) {
             throw new IllegalArgumentException("Coordinates out of bounds");
         }
-        Node node = mineGrid.getNode(row, col);
-        if (node.isRevealed()) {
+        int index = mineGrid.indexOf(row, col);
+        if (replayLog != null) {
+            replayLog.record(ReplayLog.FLAG, index);
+        }
+        EngineEvents.Move event = new EngineEvents.Move();
+        event.begin();
+        long start = EngineMetrics.start();
+        lastChanges.clear();
+        MineSweeperMessages message = flagIndex(index);
+        if (instrumented) {
+            EngineMetrics.FLAG_NANOS.recordSince(start);
+        }
+        commitMove(event, true, row, col, message);
+        return message;
+    }
+
+    /**
+     * Fills in and commits a move event, if it is being recorded.
+     */
+    private void commitMove(EngineEvents.Move event, boolean flag, int row, int col, MineSweeperMessages message) {
+        if (instrumented && event.shouldCommit()) {
+            event.flag = flag;
+            event.row = row;
+            event.col = col;
+            event.result = message.name();
+            event.cellsChanged = lastChanges.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Toggles the flag of a node by index without clearing the changes.
+     * @param index index of the node
+     * @return the status of the node after flagging, as for flagNode
+     */
+    private MineSweeperMessages flagIndex(int index) {
+        if (!isStarted()) {
+            return MineSweeperMessages.INVALID_MOVE; // startGame would clear the flag
+        }
+        if (mineGrid.isRevealed(index)) {
             return MineSweeperMessages.REVEALED_NODE; // Cannot flag a revealed node
         }
-        node.setFlagged(!node.isFlagged()); // Toggle the flagged state
+        boolean flagged = !mineGrid.isFlagged(index);
+        mineGrid.setFlagged(index, flagged); // Toggle the flagged state
+        recordChange(index);
 
-        if (node.isFlagged()) {
+        if (flagged) {
             this.numberOfFlags++;
             return MineSweeperMessages.FLAGGED_NODE; // Node is now flagged
             
@@ -128,8 +360,7 @@ public class MineSweeper {
         if (isOutOfBounds(row, col)) {
             throw new IllegalArgumentException("Coordinates out of bounds");
         }
-        Node node = mineGrid.getNode(row, col);
-        return node.getBombsNearby(); // Return the number of bombs nearby the specified node
+        return mineGrid.getBombsNearby(mineGrid.indexOf(row, col)); // Return the number of bombs nearby the specified node
     }
 
     /**
@@ -142,21 +373,26 @@ public class MineSweeper {
         if (isOutOfBounds(row, col)) {
             throw new IllegalArgumentException("Coordinates out of bounds");
         }
-        Node node = mineGrid.getNode(row, col);
-        MineSweeperMessages messages = MineSweeperMessages.EMPTY_NODE;
-        if (node.isRevealed()) {
-            if (node.isBomb()) {
-                messages = MineSweeperMessages.BOMB_AND_REVEALED; // Node is a bomb and revealed
-            } else {
-                messages = MineSweeperMessages.REVEALED_NODE;
+        return stateOf(mineGrid.getCell(mineGrid.indexOf(row, col)));
+    }
+
+    /**
+     * Converts a packed cell from the grid into the message the frontends understand.
+     * @param cell packed cell byte
+     * @return the state of the cell
+     */
+    static MineSweeperMessages stateOf(int cell) {
+        if ((cell & MineGrid.REVEALED_BIT) != 0) {
+            if ((cell & MineGrid.BOMB_BIT) != 0) {
+                return MineSweeperMessages.BOMB_AND_REVEALED; // Node is a bomb and revealed
             }
-        } else if (node.isFlagged()) {
+            return MineSweeperMessages.REVEALED_NODE;
+        } else if ((cell & MineGrid.FLAGGED_BIT) != 0) {
             return MineSweeperMessages.FLAGGED_NODE;
-        } else if (node.isBomb()) {
+        } else if ((cell & MineGrid.BOMB_BIT) != 0) {
             return MineSweeperMessages.BOMB_AND_HIDDEN;
         }
-
-        return messages;
+        return MineSweeperMessages.EMPTY_NODE;
     }
 
     /**
@@ -177,111 +413,127 @@ public class MineSweeper {
 
 
     /**
-     * Reveals the nodes around the starting position.
-     * @param row row of the starting node
-     * @param col column of the starting node
+     * Populates the grid with bombs.
+     * Randomly places mineCount bombs on the nodes outside the 3x3 area around the start.
+     * Uses Floyd's sampling: one random number per bomb, never a retry,
+     * with the bomb bits themselves as the set of nodes already taken.
+     * Each bomb adds itself to the counts of its neighbours as it is placed, so the counts are
+     * ready once the last bomb is down.
+     * @param startRow row of the starting node
+     * @param startCol column of the starting node
+     * @param random source of randomness, freshly seeded for every game
      */
-    private void revealNodesAroundStart(int row, int col){
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newRow = row + i;
-                int newCol = col + j;
-                if (isOutOfBounds(newRow, newCol)) {
-                    continue; // Skip out of bounds
-                }
-                Node neighborNode = mineGrid.getNode(newRow, newCol);
-                neighborNode.setRevealed(true); // Reveal the neighboring node
+    private void populateGridWithBombs(int startRow, int startCol, RandomGenerator random) {
+        int eligibleCount = countEligibleNodes(mineGrid.getRows(), mineGrid.getCols(), startRow, startCol);
+        for (int j = eligibleCount - mineCount; j < eligibleCount; j++) {
+            int index = eligibleToIndex(random.nextInt(j + 1), startRow, startCol);
+            if (mineGrid.isBomb(index)) {
+                index = eligibleToIndex(j, startRow, startCol); // j itself can not have been picked yet
             }
+            mineGrid.placeBomb(index);
         }
     }
 
     /**
-     * Pretty silly way to do this.
-     * It hides the nodes around start so flood fill works. Probably some other better way but this works.
-     * @param row row of node
-     * @param col column of node
+     * Maps a position in the row-major list of nodes outside the starting area to a grid index.
+     * @param eligible position among the nodes outside the starting area
+     * @param startRow row of the starting node
+     * @param startCol column of the starting node
+     * @return grid index of that node
      */
-    private void hideNodesAroundStart(int row, int col){
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                int newRow = row + i;
-                int newCol = col + j;
-                if (isOutOfBounds(newRow, newCol)) {
-                    continue; // Skip out of bounds
-                }
-                Node neighborNode = mineGrid.getNode(newRow, newCol);
-                neighborNode.setRevealed(false); // Hide the neighboring node
-            }
+    private int eligibleToIndex(int eligible, int startRow, int startCol) {
+        int cols = mineGrid.getCols();
+        int firstRow = Math.max(startRow - 1, 0);
+        int lastRow = Math.min(startRow + 1, mineGrid.getRows() - 1);
+        int firstCol = Math.max(startCol - 1, 0);
+        int areaCols = Math.min(startCol + 1, cols - 1) - firstCol + 1;
+        int before = firstRow * cols; // nodes in the rows above the starting area
+        if (eligible < before) {
+            return eligible;
+        }
+        int bandCols = cols - areaCols; // nodes per row beside the starting area
+        int inBand = eligible - before;
+        if (inBand < (lastRow - firstRow + 1) * bandCols) {
+            int row = firstRow + inBand / bandCols;
+            int col = inBand % bandCols;
+            return row * cols + (col < firstCol ? col : col + areaCols);
         }
+        return eligible + (lastRow - firstRow + 1) * areaCols; // below the starting area
     }
 
     /**
-     * Populates the grid with bombs.
-     * Randomly places a certain number of bombs in the grid based on the size of the grid.
-     */
-    private void populateGridWithBombs() {
-        // Logic to randomly place bombs in the grid
-        // keeps looping until the required number of bombs are placed
-        int bombsToPlace = mineCount;
-        while (bombsToPlace > 0) {
-            int row = (int) (Math.random() * mineGrid.getRows());
-            int col = (int) (Math.random() * mineGrid.getCols());
-            Node node = mineGrid.getNode(row, col);
-            if( node.isRevealed()){
-                continue; // Skip if the node is already revealed
-            }
-            if (!node.isBomb()) {
-                node.setBomb(true);
-                bombsToPlace--;
-            }
-        }
+     * Counts the nodes that can hold a bomb, which is every node outside the 3x3 area around the start.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param startRow row of the starting node
+     * @param startCol column of the starting node
+     * @return number of nodes a bomb can be placed on
+     */
+    private static int countEligibleNodes(int rows, int cols, int startRow, int startCol) {
+        int startAreaRows = Math.min(startRow + 1, rows - 1) - Math.max(startRow - 1, 0) + 1;
+        int startAreaCols = Math.min(startCol + 1, cols - 1) - Math.max(startCol - 1, 0) + 1;
+        return rows * cols - startAreaRows * startAreaCols;
     }
 
     /**
-     * Goes through the grid and updates the count of nearby bombs for each node.
+     * Gets the work stack used by flood fill, big enough for every node.
+     * @return work array with one slot per node
      */
-    private void calculateNearbyBombCounts(){
-        // Logic to update the grid after bombs are placed
-        for (int i = 0; i < mineGrid.getRows(); i++) {
-            for (int j = 0; j < mineGrid.getCols(); j++) {
-                Node currentNode = mineGrid.getNode(i, j);
-                if (currentNode.isBomb()) {
-                    continue; // Skip bomb nodes
-                }
-                updateNearbyCounts(i, j); // Update counts for non-bomb nodes
-            }
+    private int[] getWorkArray() {
+        if (workArray == null || workArray.length < mineGrid.getSize()) {
+            workArray = new int[mineGrid.getSize()];
         }
+        return workArray;
     }
 
     /**
-     * Updates the count of nearby bombs for a specific node.
-     * @param row row of node
-     * @param col column of node
+     * Moves a mine to another node, updating only the nearby counts around the two nodes.
+     * Useful for repairing a generated board without placing every mine again.
+     * The two nodes and every neighbour whose count changes are listed in getLastChanges, so
+     * GameHistory can record the move. The board no longer comes from the seed after this, so
+     * getBoardCode gives null, and a game that is being recorded can't move mines.
+     * @param fromRow row of the node holding the mine
+     * @param fromCol column of the node holding the mine
+     * @param toRow row of the node to move the mine to
+     * @param toCol column of the node to move the mine to
      */
-    private void updateNearbyCounts(int row, int col) {
-        if (isOutOfBounds(row, col)) {
-            return; // Skip out of bounds
+    public void moveMine(int fromRow, int fromCol, int toRow, int toCol) {
+        if (isOutOfBounds(fromRow, fromCol) || isOutOfBounds(toRow, toCol)) {
+            throw new IllegalArgumentException("Coordinates out of bounds");
         }
-        // Logic to update the count of nearby bombs for each node
-        int bombsNearby = 0;
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                if (i == 0 && j == 0){
-                    continue; // Skip the current node
-                }
-                int newRow = row + i;
-                int newCol = col + j;
-                if (isOutOfBounds(newRow, newCol)) {
-                    continue; // Skip out of bounds
+        int from = mineGrid.indexOf(fromRow, fromCol);
+        int to = mineGrid.indexOf(toRow, toCol);
+        if (!mineGrid.isBomb(from) || mineGrid.isRevealed(from)) {
+            throw new IllegalArgumentException("There is no hidden mine to move at (" + fromRow + ", " + fromCol + ")");
+        }
+        if (mineGrid.isBomb(to) || mineGrid.isRevealed(to)) {
+            throw new IllegalArgumentException("A mine can only be moved to a hidden safe node");
+        }
+        if (replayLog != null) {
+            throw new IllegalStateException("A replay log can't record a moved mine");
+        }
+        lastChanges.clear();
+        mineGrid.removeBomb(from);
+        mineGrid.placeBomb(to);
+        fromSeed = false;
+        recordArea(fromRow, fromCol);
+        recordArea(toRow, toCol);
+    }
+
+    /**
+     * Records a node and its neighbours as changed, used when a mine moves and their counts change.
+     * A node next to both ends of a move is listed twice, both entries hold its final cell.
+     * @param row row of the node
+     * @param col column of the node
+     */
+    private void recordArea(int row, int col) {
+        for (int i = row - 1; i <= row + 1; i++) {
+            for (int j = col - 1; j <= col + 1; j++) {
+                if (!isOutOfBounds(i, j)) {
+                    recordChange(mineGrid.indexOf(i, j));
                 }
-                Node neighborNode = mineGrid.getNode(newRow, newCol);
-                if (neighborNode.isBomb()) {
-                    bombsNearby++;
-                } // nigger
             }
         }
-        Node currentNode = mineGrid.getNode(row, col);
-        currentNode.setBombsNearby(bombsNearby);
     }
 
     /**
@@ -297,6 +549,8 @@ public class MineSweeper {
     /**
      * Flood fill algorithm to reveal all connected nodes starting from the given position.
      * It reveals all nodes that are not bombs and are connected to the starting node.
+     * Nodes are revealed as they are pushed onto the work stack so each one is only visited once,
+     * and the stack is kept between calls so a fill does not allocate anything.
      * @param row starting row
      * @param col starting column
      */
@@ -304,59 +558,195 @@ public class MineSweeper {
         if (isOutOfBounds(row, col)) {
             return; // Skip out of bounds
         }
-        Queue<int[]> queue = new java.util.LinkedList<>();
-        queue.add(new int[]{row, col});
-        while(!queue.isEmpty()){
-            int[] current = queue.poll();
-            int currentRow = current[0];
-            int currentCol = current[1];
-            Node currentNode = mineGrid.getNode(currentRow, currentCol);
-
-            if (currentNode.isRevealed() || currentNode.isBomb()) {
-                continue; // Skip already revealed or bomb nodes
-            }
+        int startIndex = mineGrid.indexOf(row, col);
+        if (mineGrid.isRevealed(startIndex) || mineGrid.isBomb(startIndex)) {
+            return; // Skip already revealed or bomb nodes
+        }
+        EngineEvents.FloodFill event = new EngineEvents.FloodFill();
+        event.begin();
+        int hiddenBefore = unrevealedSafeNodes;
+        int[] stack = getWorkArray(); // every node is pushed at most once
+        int rows = mineGrid.getRows();
+        int cols = mineGrid.getCols();
+        int top = 0;
 
-            currentNode.setRevealed(true); // Reveal the current node
-            if (currentNode.getBombsNearby()!=0){
+        revealSafeNode(startIndex);
+        stack[top++] = startIndex;
+        while (top > 0) {
+            int currentIndex = stack[--top];
+            if (mineGrid.getBombsNearby(currentIndex) != 0) {
                 continue; // reveal node but does not flood fill further
             }
 
-            // exploring neighboring nodes
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (i == 0 && j == 0){
-                        continue; // Skip the current node
-                    }
-                    int newRow = currentRow + i;
-                    int newCol = currentCol + j;
-                    if (isOutOfBounds(newRow, newCol)) {
-                        continue; // Skip out of bounds
-                    }
-                    Node neighborNode = mineGrid.getNode(newRow, newCol);
-                    if (!neighborNode.isRevealed() && !neighborNode.isBomb()) {
-                        queue.add(new int[]{newRow, newCol}); // Add to queue for further exploration
+            // exploring neighboring nodes, clamped to the grid instead of checking each one
+            int currentRow = mineGrid.rowOf(currentIndex);
+            int currentCol = currentIndex - currentRow * cols;
+            int firstRow = Math.max(currentRow - 1, 0);
+            int lastRow = Math.min(currentRow + 1, rows - 1);
+            int firstCol = Math.max(currentCol - 1, 0);
+            int lastCol = Math.min(currentCol + 1, cols - 1);
+            for (int i = firstRow; i <= lastRow; i++) {
+                for (int j = firstCol; j <= lastCol; j++) {
+                    int neighborIndex = i * cols + j;
+                    if (!mineGrid.isRevealed(neighborIndex) && !mineGrid.isBomb(neighborIndex)) {
+                        revealSafeNode(neighborIndex); // mark on push so it is never queued twice
+                        stack[top++] = neighborIndex;
                     }
                 }
             }
         }
+        int revealed = hiddenBefore - unrevealedSafeNodes;
+        if (instrumented) {
+            EngineMetrics.CASCADE_CELLS.record(revealed);
+        }
+        if (instrumented && event.shouldCommit()) {
+            event.cellsRevealed = revealed;
+            event.commit();
+        }
     }
 
-    private void isGameWon() {
-        int rows = mineGrid.getRows();
-        int cols = mineGrid.getCols();
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                Node node = mineGrid.getNode(i, j);
-                if (!node.isBomb() && !node.isRevealed()) {
-                    return; // Found a non-bomb node that is not revealed
-                }
+    /**
+     * Reveals a safe node and updates the count of safe nodes left.
+     * @param index index of the node
+     */
+    private void revealSafeNode(int index) {
+        mineGrid.setRevealed(index, true);
+        unrevealedSafeNodes--;
+        recordChange(index);
+    }
+
+    /**
+     * Adds the current state of a node to the list of changes for this move.
+     * @param index index of the node
+     */
+    private void recordChange(int index) {
+        lastChanges.add(index, mineGrid.getCell(index));
+    }
+
+    /**
+     * Gets the cells changed by the last call to startGame, revealNode, flagNode or applyMoves.
+     * The list is reused by the next move, so read it before making another one.
+     * After startGame only the revealed cells and any flags it cleared are listed, every other cell is hidden.
+     * @return the changes made by the last move
+     */
+    public CellChanges getLastChanges() {
+        return lastChanges;
+    }
+
+    /**
+     * Turns the JFR events and metrics of this game on or off. They are on by default. Boards that
+     * are only made to be checked, like no-guess candidates, turn them off so the recording and
+     * the histograms only show games that are played.
+     * @param instrumented false to emit no events or metrics
+     */
+    void setInstrumented(boolean instrumented) {
+        this.instrumented = instrumented;
+    }
+
+    /**
+     * Lists every revealed or flagged cell in getLastChanges, e.g. to draw the whole board again
+     * after jumping to another point of a replay.
+     * @return the changes, same as getLastChanges
+     */
+    public CellChanges recordVisibleCells() {
+        lastChanges.clear();
+        int size = mineGrid.getSize();
+        for (int i = 0; i < size; i++) {
+            if ((mineGrid.getCell(i) & (MineGrid.REVEALED_BIT | MineGrid.FLAGGED_BIT)) != 0) {
+                recordChange(i);
             }
         }
+        return lastChanges;
+    }
+
+    /**
+     * Copies the board into a persistent version, see GameHistory.
+     * @return the current cells as a PersistentBoard
+     */
+    PersistentBoard toPersistentBoard() {
+        return PersistentBoard.of(mineGrid);
+    }
+
+    /**
+     * Puts the board back to another version kept by GameHistory, e.g. for undo.
+     * Only the cells that differ between the two versions are written, and they are listed in getLastChanges.
+     * @param current version matching the board right now
+     * @param target version to go to
+     * @param numberOfFlags flags placed in the target version
+     * @param unrevealedSafeNodes safe nodes still hidden in the target version
+     * @param status game status in the target version
+     */
+    void restoreVersion(PersistentBoard current, PersistentBoard target, int numberOfFlags,
+            int unrevealedSafeNodes, MineSweeperMessages status) {
+        lastChanges.clear();
+        current.diff(target, (index, cell) -> {
+            mineGrid.setCell(index, cell);
+            recordChange(index);
+        });
+        this.numberOfFlags = numberOfFlags;
+        this.unrevealedSafeNodes = unrevealedSafeNodes;
+        this.gameStatus = status;
+        if (status == MineSweeperMessages.GAME_ONGOING) {
+            clock.resume(); // undoing the last move of a game carries on its time
+        } else {
+            clock.pause();
+        }
+    }
+
+    /**
+     * Records every move made from now on to a log, or stops recording.
+     * Moves are only recorded, never checked against the log, so one log should follow one game.
+     * @param replayLog log made for this game, or null to stop recording
+     */
+    public void setReplayLog(ReplayLog replayLog) {
+        if (replayLog != null && (replayLog.getRows() != getRows() || replayLog.getCols() != getCols())) {
+            throw new IllegalArgumentException("Replay log is for a different board size");
+        }
+        if (replayLog != null && !fromSeed) {
+            throw new IllegalArgumentException("A replay can't make a board whose mines were moved");
+        }
+        this.replayLog = replayLog;
+    }
+
+    public ReplayLog getReplayLog() {
+        return replayLog;
+    }
+
+    /**
+     * Gets the clock of the game, started by startGame and stopped when the game is won or lost.
+     * Frontends can pause and resume it, e.g. while the game is hidden.
+     * @return the game's clock
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Checks if every safe node has been revealed and marks the game as won if so.
+     * Constant time as flood fill keeps count of the safe nodes still hidden.
+     */
+    private void isGameWon() {
+        if (unrevealedSafeNodes > 0) {
+            return; // There are still safe nodes to reveal
+        }
         gameStatus = MineSweeperMessages.GAME_WON;
+        clock.pause();
         revealAllOnWin(); // Reveal all nodes when the game is won
     }
 
 
+    /**
+     * Lists every flagged node as hidden in getLastChanges, for startGame clearing the grid.
+     */
+    private void recordClearedFlags() {
+        int size = mineGrid.getSize();
+        for (int i = 0; i < size; i++) {
+            if (mineGrid.isFlagged(i)) {
+                lastChanges.add(i, 0);
+            }
+        }
+    }
+
     /**
      * Resets the grid by making a new instance with same dimensions.
      */
@@ -366,6 +756,106 @@ public class MineSweeper {
         mineGrid = new MineGrid(rows, cols);
     }
 
+    /**
+     * Takes a snapshot of the whole game with the time on its clock, e.g. to save it.
+     * @return snapshot of the game
+     */
+    public GameSnapshot toSnapshot() {
+        return toSnapshot(clock.getElapsedMillis());
+    }
+
+    /**
+     * Takes a snapshot of the whole game with a given time played, e.g. for a point in a replay.
+     * @param elapsedMillis time played so far
+     * @return snapshot of the game
+     */
+    public GameSnapshot toSnapshot(long elapsedMillis) {
+        int size = mineGrid.getSize();
+        int words = GameSnapshot.wordsFor(size);
+        long[] mines = new long[words];
+        long[] revealed = new long[words];
+        long[] flagged = new long[words];
+        for (int i = 0; i < size; i++) {
+            int cell = mineGrid.getCell(i);
+            long bit = 1L << i;
+            if ((cell & MineGrid.BOMB_BIT) != 0) {
+                mines[i >>> 6] |= bit;
+            }
+            if ((cell & MineGrid.REVEALED_BIT) != 0) {
+                revealed[i >>> 6] |= bit;
+            }
+            if ((cell & MineGrid.FLAGGED_BIT) != 0) {
+                flagged[i >>> 6] |= bit;
+            }
+        }
+        return new GameSnapshot(getRows(), getCols(), mineCount, gameStatus, startRow, startCol, seed, fromSeed,
+                elapsedMillis, mines, revealed, flagged);
+    }
+
+    /**
+     * Rebuilds a game from a snapshot. Nearby counts, flags and safe nodes left are worked out again.
+     * getLastChanges lists every revealed or flagged cell, so a frontend can draw the board in one go.
+     * @param snapshot snapshot to restore
+     * @return the restored game
+     */
+    public static MineSweeper fromSnapshot(GameSnapshot snapshot) {
+        MineSweeper game = new MineSweeper(snapshot.getRows(), snapshot.getCols(), snapshot.getMineCount(),
+                snapshot.getSeed());
+        MineGrid grid = game.mineGrid;
+        long[] mineBits = snapshot.getMines();
+        long[] revealedBits = snapshot.getRevealed();
+        long[] flaggedBits = snapshot.getFlagged();
+        int size = grid.getSize();
+        int mines = 0;
+        // walk the set bits only, most words of a bitset are usually empty or sparse
+        for (int word = 0; word < mineBits.length; word++) {
+            for (long bits = mineBits[word]; bits != 0; bits &= bits - 1) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (i >= size) {
+                    throw new IllegalArgumentException("Snapshot has mines outside the board");
+                }
+                grid.placeBomb(i);
+                mines++;
+            }
+        }
+        boolean started = snapshot.getStartRow() >= 0;
+        if (started ? mines != snapshot.getMineCount() : mines != 0) {
+            throw new IllegalArgumentException("Snapshot holds " + mines + " mines instead of " + snapshot.getMineCount());
+        }
+        if (started && game.isOutOfBounds(snapshot.getStartRow(), snapshot.getStartCol())) {
+            throw new IllegalArgumentException("Snapshot starting cell is out of bounds");
+        }
+        for (int word = 0; word < revealedBits.length; word++) {
+            long shown = revealedBits[word] | flaggedBits[word];
+            for (long bits = shown; bits != 0; bits &= bits - 1) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if (i >= size) {
+                    break;
+                }
+                if (GameSnapshot.isSet(revealedBits, i)) {
+                    grid.setRevealed(i, true);
+                    if (!grid.isBomb(i)) {
+                        game.unrevealedSafeNodes--;
+                    }
+                }
+                if (GameSnapshot.isSet(flaggedBits, i)) { // a flagged mine stays flagged when a loss reveals it
+                    grid.setFlagged(i, true);
+                    game.numberOfFlags++;
+                }
+                game.recordChange(i);
+            }
+        }
+        game.startRow = snapshot.getStartRow();
+        game.startCol = snapshot.getStartCol();
+        game.fromSeed = snapshot.isFromSeed();
+        game.gameStatus = snapshot.getStatus();
+        game.clock.set(snapshot.getElapsedMillis());
+        if (started && game.gameStatus == MineSweeperMessages.GAME_ONGOING) {
+            game.clock.resume();
+        }
+        return game;
+    }
+
     /**
      * Gets the number of mines in the grid.
      * @return number of mines
@@ -390,8 +880,43 @@ public class MineSweeper {
     }
 
     /**
-     * Checks if the game is over (a bomb has been revealed).
-     * @return true if game is over, false otherwise
+     * Gets the number of safe nodes that are still hidden.
+     * @return number of safe nodes left to reveal
+     */
+    public int getUnrevealedSafeNodes() {
+        return unrevealedSafeNodes;
+    }
+
+    /**
+     * Gets the seed used to place the mines.
+     * @return seed of this game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Checks if startGame has been called, which places the mines.
+     * @return true once the game has been started
+     */
+    public boolean isStarted() {
+        return startRow >= 0;
+    }
+
+    /**
+     * Gets a code that can be shared to play this exact board again.
+     * @return board code, or null if the game has not been started yet or one of its mines has been moved
+     */
+    public BoardCode getBoardCode() {
+        if (startRow < 0 || !fromSeed) {
+            return null;
+        }
+        return new BoardCode(getRows(), getCols(), mineCount, startRow, startCol, seed);
+    }
+
+    /**
+     * Gets the status of the game.
+     * @return GAME_ONGOING while playing, GAME_OVER after a bomb is revealed or GAME_WON
      */
     public MineSweeperMessages getGameStatus() {
         return gameStatus;
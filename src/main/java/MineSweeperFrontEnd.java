@@ -1,7 +1,15 @@
 import java.util.regex.Pattern;
 
 public class MineSweeperFrontEnd extends BaseTextProgram {
+    // largest board the text version asks for, the same as the custom boards in the window and board codes
+    private static final int MAX_SIZE = BoardCode.MAX_SIZE;
+    // column letters then row number, e.g. A1 or AB12
+    private static final Pattern COORDINATES = Pattern.compile("^[A-Z]{1,3}\\d{1,4}$");
+
     private MineSweeper mineSweeper;
+    private TerminalRenderer renderer; // draws the board, kept up to date from the game's changes
+    private String status; // result of the last action, shown under the board
+    private GameHistory history; // made once the game has started
     private boolean gameOver = false;
 
     public MineSweeperFrontEnd() {
@@ -10,53 +18,96 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
     }
 
     private void initialiseGame(){
+        if (askYesNo("Would you like to play a shared board code? (Y/N): ")) {
+            mineSweeper = askBoardCode();
+            history = new GameHistory(mineSweeper);
+            renderer = new TerminalRenderer(mineSweeper.getRows(), mineSweeper.getCols(), System.out);
+            displayInstructions();
+            applyChanges();
+            playGame();
+            return;
+        }
         int rows = askGridRows();
         int cols = askGridColumns();
         MineSweeperDifficulty difficulty = pickDifficulty();
         int mines = (int)(rows * cols * difficulty.getBombPercentage());
+        mines = Math.min(mines, Math.max(0, rows * cols - 9)); // leave room for the 3x3 starting area
         mineSweeper = new MineSweeper(rows, cols, mines);
+        renderer = new TerminalRenderer(rows, cols, System.out);
         displayInstructions();
         startGame();
     }
 
     private int askGridRows() {
-        int maxRows = 20;
+        int maxRows = MAX_SIZE;
         print("Enter the number of rows for the mine grid:");
         int rows = inputInt("Enter a number between 1 and "+maxRows+": ");
-        while (rows < 1 || rows > 20) {
+        while (rows < 1 || rows > maxRows) {
             rows = inputInt("Invalid number of rows. Please enter a number between 1 and "+maxRows+".");
         }
         return rows;
     }
 
     private int askGridColumns() {
-        int maxCols =20;
+        int maxCols = MAX_SIZE;
         print("Enter the number of columns for the mine grid:");
         int rows = inputInt("Enter a number between 1 and "+maxCols+": ");
-        while (rows < 1 || rows > 20) {
+        while (rows < 1 || rows > maxCols) {
             rows = inputInt("Invalid number of columns. Please enter a number between 1 and "+maxCols+".");
         }
         return rows;
     }
 
+    /**
+     * Shows the instructions under the board, on the one line left for messages.
+     */
     private void displayInstructions() {
-        print("Instructions:");
-        print("1. Use R to reveal a node and F to flag a node.");
-        print("2. Enter the row and column indices to perform the action.");
+        status = "R reveals, F flags, U undoes, Y redoes, V moves the view. Give cells as column then row, e.g. A1 or AB12.";
+    }
+
+    private boolean askYesNo(String message) {
+        String input = inputString(message).trim().toUpperCase();
+        while (!input.equals("Y") && !input.equals("N")) {
+            input = inputString("Please enter Y or N: ").trim().toUpperCase();
+        }
+        return input.equals("Y");
+    }
+
+    /**
+     * Asks for a board code until a valid one is given.
+     * @return the game for that board, already started on the code's starting cell
+     */
+    private MineSweeper askBoardCode() {
+        while (true) {
+            String code = inputString("Enter the board code: ");
+            try {
+                return BoardCode.parse(code).startGame();
+            } catch (IllegalArgumentException e) {
+                print("Invalid board code: " + e.getMessage());
+            }
+        }
     }
 
     private void startGame() {
         startPosition();
-        final String CLEAR_SCREEN = "\033[H\033[2J";
+        playGame();
+    }
 
+    private void playGame() {
         while (!gameOver) {
-            print(CLEAR_SCREEN);
             printGrid();
+            if (status != null) {
+                print(status);
+                status = null;
+            }
             String action = getAction();
             switch (action) {
                 case "Q" -> endGame();
                 case ("R") -> askRevealPosition();
                 case "F" -> askFlagPosition();
+                case "U" -> undoMove();
+                case "Y" -> redoMove();
+                case "V" -> askViewPosition();
             }
             if (mineSweeper.getGameStatus() == MineSweeperMessages.GAME_WON) {
                 gameOver = true;
@@ -85,35 +136,53 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
 
     private void startPosition(){
         printGrid();
+        print(status);
+        status = null;
         print("Please enter where you would like to start the game.");
-        String coordinates = askNodeCoordinates();
-        int col = letterToNumber(coordinates.charAt(0));
-        int row = Integer.parseInt(coordinates.substring(1)) - 1; // Convert to 0-indexed
-        mineSweeper.startGame(row, col);
+        int[] rowCol = coordinatesToRowCol(askNodeCoordinates());
+        mineSweeper.startGame(rowCol[0], rowCol[1]);
+        applyChanges();
+        history = new GameHistory(mineSweeper);
     }
 
     private void endGame() {
-        print("Game Over! Thanks for playing.");
         printGrid();
+        print("Game Over! Thanks for playing.");
+        print("Time played: " + timePlayed());
+        print("Board code: " + mineSweeper.getBoardCode());
         gameOver = true;
     }
 
+    /**
+     * Gets the time on the game's clock to the millisecond, e.g. 12.345 s.
+     * @return time played as text
+     */
+    private String timePlayed() {
+        long millis = mineSweeper.getClock().getElapsedMillis();
+        return millis / 1000 + "." + String.format("%03d", millis % 1000) + " s";
+    }
+
     private void askRevealPosition(){
         String coordinates = askNodeCoordinates();
         int[] rowCol = coordinatesToRowCol(coordinates);
         MineSweeperMessages message = mineSweeper.revealNode(rowCol[0], rowCol[1]);
+        applyChanges();
+        history.record();
+        renderer.ensureVisible(rowCol[0], rowCol[1]);
         if (message == MineSweeperMessages.REVEALED_NODE) {
-            print("Node is already revealed.");
+            status = "Node is already revealed.";
         } else if (message == MineSweeperMessages.BOMB_NODE) {
-            print("Game Over! You hit a bomb at (" + coordinates + ").");
             printGrid();
+            print("Game Over! You hit a bomb at (" + coordinates + ").");
+            print("Time played: " + timePlayed());
+            print("Board code: " + mineSweeper.getBoardCode());
             // Reveal all nodes and end the game
             gameOver = true;
         } else if (message == MineSweeperMessages.NODE_NOW_REVEALED){
             int bombs = mineSweeper.howManyBombsNearbyTile(rowCol[0], rowCol[1]);
-            print("Node at (" + coordinates + ") revealed. Bombs nearby: " + bombs);
+            status = "Node at (" + coordinates + ") revealed. Bombs nearby: " + bombs;
         }else {
-            print("There was an error revealing the node at (" + coordinates + ").");
+            status = "There was an error revealing the node at (" + coordinates + ").";
         }
     }
 
@@ -121,10 +190,40 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
         String coordinates = askNodeCoordinates();
         int[] rowCol = coordinatesToRowCol(coordinates);
         MineSweeperMessages message = mineSweeper.flagNode(rowCol[0], rowCol[1]);
+        applyChanges();
+        history.record();
+        renderer.ensureVisible(rowCol[0], rowCol[1]);
         if (message == MineSweeperMessages.REVEALED_NODE) {
-            print("Node is already revealed. Cannot flag.");
+            status = "Node is already revealed. Cannot flag.";
         } else {
-            print("Node at (" + coordinates + ") flagged.");
+            status = "Node at (" + coordinates + ") flagged.";
+        }
+    }
+
+    /**
+     * Asks for the cell to show at the top left of the view, for boards bigger than the terminal.
+     */
+    private void askViewPosition() {
+        print("Enter the cell to show at the top left of the view.");
+        int[] rowCol = coordinatesToRowCol(askNodeCoordinates());
+        renderer.scrollTo(rowCol[0], rowCol[1]);
+    }
+
+    private void undoMove() {
+        if (history.undo()) {
+            applyChanges();
+            status = "Move undone.";
+        } else {
+            status = "Nothing to undo.";
+        }
+    }
+
+    private void redoMove() {
+        if (history.redo()) {
+            applyChanges();
+            status = "Move redone.";
+        } else {
+            status = "Nothing to redo.";
         }
     }
 
@@ -136,9 +235,11 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
             input = input.toUpperCase().trim(); // Convert to uppercase and trim whitespace
             // Check if the input is valid
             if (!isValidCoordinates(input)) {
-                print("Invalid coordinates. Please enter in the format A1, B2, etc.");
+                print("Invalid coordinates. Please enter in the format A1, B2, AA10, etc.");
+                renderer.invalidate(); // the extra lines may have scrolled the board
             } else if (!isCoordinatesInRange(input)) {
                 print("Coordinates out of range. Please enter coordinates within the grid.");
+                renderer.invalidate();
             } else {
                 valid = true;
             }
@@ -152,14 +253,12 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
      * @return true if valid, false otherwise
      */
     private boolean isValidCoordinates(String input) {
-        String pattern = "^[A-Z]\\d{1,2}$";
-        Pattern regex = Pattern.compile(pattern);
-        return regex.matcher(input).matches();
+        return COORDINATES.matcher(input).matches();
     }
 
     /**
      * Checks to see if the coordinates given are in range of the grid.
-     * @param input the input string containing coordinates (e.g., A1 or B21)
+     * @param input the input string containing coordinates (e.g., A1 or AB21)
      * @return true if the coordinates are in range, false otherwise
      */
     private boolean isCoordinatesInRange(String input) {
@@ -168,75 +267,57 @@ public class MineSweeperFrontEnd extends BaseTextProgram {
     }
 
     /**
-     * Converts coordinates from the format A1, B2, etc. to row and column indices.
-     * @param coordinates the coordinates in the format A1, B2, etc.
+     * Converts coordinates from the format A1, B2, AA10, etc. to row and column indices.
+     * @param coordinates the coordinates in the format A1, B2, AA10, etc.
      * @return an array containing the row and column indices index 0 is row, index 1 is column
      */
     private int[] coordinatesToRowCol(String coordinates) {
-        char letter = coordinates.charAt(0);
-        int number = Integer.parseInt(coordinates.substring(1)) - 1; // Convert to 0-indexed
-        int col = letterToNumber(letter);
+        int digits = 0;
+        while (!Character.isDigit(coordinates.charAt(digits))) {
+            digits++;
+        }
+        int number = Integer.parseInt(coordinates.substring(digits)) - 1; // Convert to 0-indexed
+        int col = TerminalRenderer.parseColumnLabel(coordinates, 0, digits);
         return new int[]{number, col};
     }
 
     private String getAction() {
-        String[] validActions = {"R", "F", "Q"};
-        String input= inputString("Enter your action (R to reveal, F to flag, Q to quit): ").toUpperCase();
+        String[] validActions = {"R", "F", "U", "Y", "V", "Q"};
+        String input= inputString("Enter your action (R reveal, F flag, U undo, Y redo, V view, Q quit): ").toUpperCase();
         while (!isStringInArray(validActions,input)) {
-            print("Invalid action. Please enter R to reveal, F to flag, or Q to quit.");
-            input = inputString("Enter your action (R to reveal, F to flag, Q to quit): ").toUpperCase();
+            print("Invalid action. Please enter R, F, U, Y, V or Q.");
+            renderer.invalidate(); // the extra lines may have scrolled the board
+            input = inputString("Enter your action (R reveal, F flag, U undo, Y redo, V view, Q quit): ").toUpperCase();
         }
         return input;
     }
 
     /**
-     * Prints the current state of the mine grid.
+     * Updates the symbols of the cells changed by the last move.
      */
-    public void printGrid() {
-        int rows = mineSweeper.getRows();
-        int cols = mineSweeper.getCols();
-
-        // Column header (with spacing for row numbers)
-        System.out.print("    "); // Padding for row numbers
-        for (int col = 0; col < cols; col++) {
-            System.out.printf(" %2s", numberToLetter(col)); // Column letters with padding
-        }
-        System.out.println();
-
-        // Grid content
-        for (int row = 0; row < rows; row++) {
-            System.out.printf("%2d |", row + 1); // Row number with left padding
-            for (int col = 0; col < cols; col++) {
-                MineSweeperMessages message = mineSweeper.getNode(row, col); // Use row, col here
-                String cell;
-                if (message == MineSweeperMessages.BOMB_AND_REVEALED) {
-                    cell = "B"; // Bomb revealed
-                } else if (message ==MineSweeperMessages.FLAGGED_NODE) {
-                    cell = "F";
-                } else if (message == MineSweeperMessages.REVEALED_NODE) {
-                    int bombsNearby = mineSweeper.howManyBombsNearbyTile(row, col);
-                    cell = String.valueOf(bombsNearby); // Empty or number of bombs nearby
-                } else {
-                    cell = ".";
-                }
-                System.out.printf("  %s", cell); // Print cell with spacing
+    private void applyChanges() {
+        CellChanges changes = mineSweeper.getLastChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            MineSweeperMessages message = changes.getState(i);
+            char cell;
+            if (message == MineSweeperMessages.BOMB_AND_REVEALED) {
+                cell = 'B'; // Bomb revealed
+            } else if (message == MineSweeperMessages.FLAGGED_NODE) {
+                cell = 'F';
+            } else if (message == MineSweeperMessages.REVEALED_NODE) {
+                cell = (char) ('0' + changes.getBombsNearby(i)); // Empty or number of bombs nearby
+            } else {
+                cell = '.';
             }
-            System.out.println();
-        }
-    }
-
-    private char numberToLetter(int number) {
-        if (number < 0 || number >= 26) {
-            throw new IllegalArgumentException("Number must be between 0 and 25");
+            renderer.setCell(changes.getIndex(i), cell);
         }
-        return (char) ('A' + number);
     }
 
-    private int letterToNumber(char letter) {
-        if (letter < 'A' || letter > 'Z') {
-            throw new IllegalArgumentException("Letter must be between A and Z");
-        }
-        return (letter - 'A');
-
+    /**
+     * Prints the current state of the mine grid.
+     * Only the cells changed since the last print are sent, unless the view moved.
+     */
+    public void printGrid() {
+        renderer.render();
     }
 }
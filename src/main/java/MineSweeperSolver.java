@@ -0,0 +1,370 @@
+/**
+ * Headless solver that plays a MineSweeper game using only logic, never guessing.
+ * It reads the board through the public API (getNode, howManyBombsNearbyTile and the changes
+ * reported after every move) and keeps its own copy in primitive arrays.
+ * Every revealed number is a constraint: the hidden cells around it hold exactly that many mines,
+ * less the flags already next to it. Two rules are used:
+ * - single cell: a constraint with no mines left makes its hidden cells safe, one with as many
+ *   mines left as hidden cells makes them all mines.
+ * - pairs: for two nearby constraints A and B, if B needs exactly as many more mines than A as
+ *   it has cells A does not, then those cells are mines and A's cells outside B are safe.
+ * Only constraints whose neighbourhood changed are looked at again.
+ * Flags already on the board are trusted to be correct.
+ */
+public final class MineSweeperSolver {
+    // values of the known array besides revealed numbers 0-8
+    private static final byte HIDDEN = -1;
+    private static final byte MINE = -2;
+    // pair masks use a 7x7 window around constraint A, neighbours of B can be 3 cells away from A
+    private static final int WINDOW = 7;
+    private static final int WINDOW_CENTRE = 3;
+
+    private MineSweeper game;
+    private int rows;
+    private int cols;
+    private byte[] known; // what the solver knows about each cell
+    private byte[] minesLeft; // for revealed cells: number minus flagged neighbours
+    private byte[] hiddenLeft; // for revealed cells: hidden (unflagged) neighbours
+    private int[] workStack; // constraints to look at again
+    private int[] moves; // packed moves for MineSweeper.applyMoves, and their results
+    private int[] moveResults;
+    private boolean[] queued;
+    private int stackTop;
+    private int hiddenCells; // hidden and not flagged, over the whole board
+    private int safeReveals;
+    private int flagsPlaced;
+
+    /**
+     * Constructor for MineSweeperSolver.
+     * @param game a started game to solve
+     */
+    public MineSweeperSolver(MineSweeper game) {
+        reset(game);
+    }
+
+    /**
+     * Points the solver at another started game, keeping the arrays if the size is the same.
+     * Lets one solver check many boards without allocating for each one.
+     * @param game a started game to solve
+     */
+    public void reset(MineSweeper game) {
+        this.game = game;
+        int size = game.getRows() * game.getCols();
+        if (known == null || known.length != size) {
+            known = new byte[size];
+            minesLeft = new byte[size];
+            hiddenLeft = new byte[size];
+            workStack = new int[size];
+            queued = new boolean[size];
+            moves = new int[size];
+            moveResults = new int[size];
+        } else {
+            java.util.Arrays.fill(queued, false);
+        }
+        rows = game.getRows();
+        cols = game.getCols();
+        stackTop = 0;
+        safeReveals = 0;
+        flagsPlaced = 0;
+        readBoard();
+    }
+
+    /**
+     * Reads the whole board once, then builds every constraint.
+     */
+    private void readBoard() {
+        hiddenCells = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int index = row * cols + col;
+                MineSweeperMessages state = game.getNode(row, col);
+                if (state == MineSweeperMessages.REVEALED_NODE) {
+                    known[index] = (byte) game.howManyBombsNearbyTile(row, col);
+                } else if (state == MineSweeperMessages.FLAGGED_NODE) {
+                    known[index] = MINE;
+                } else {
+                    known[index] = HIDDEN; // revealed bombs only exist in a lost game
+                    hiddenCells++;
+                }
+            }
+        }
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] >= 0) {
+                rebuildConstraint(index);
+            }
+        }
+    }
+
+    /**
+     * Solves as far as logic allows.
+     * @return GAME_WON if the board was cleared, GAME_ONGOING if the solver got stuck, or
+     * GAME_OVER if a wrong flag on the board led it onto a mine
+     */
+    public MineSweeperMessages solve() {
+        while (game.getGameStatus() == MineSweeperMessages.GAME_ONGOING) {
+            if (stackTop == 0 && !applyGlobalRule()) {
+                break; // nothing left to deduce
+            }
+            while (stackTop > 0 && game.getGameStatus() == MineSweeperMessages.GAME_ONGOING) {
+                int index = workStack[--stackTop];
+                queued[index] = false;
+                evaluate(index);
+            }
+        }
+        return game.getGameStatus();
+    }
+
+    /**
+     * Reveals a cell chosen from outside the solver, such as a guess, and takes in the result.
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return the result of MineSweeper.revealNode
+     */
+    public MineSweeperMessages reveal(int row, int col) {
+        MineSweeperMessages message = game.revealNode(row, col);
+        readChanges();
+        return message;
+    }
+
+    /**
+     * Checks if the solver still sees a cell as hidden and unflagged.
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return true if the cell is hidden and not flagged
+     */
+    public boolean isHidden(int row, int col) {
+        return known[row * cols + col] == HIDDEN;
+    }
+
+    /**
+     * Looks at one constraint with the single cell rule, then pairs it with every constraint
+     * close enough to share hidden cells.
+     * @param index the revealed cell to look at
+     */
+    private void evaluate(int index) {
+        if (known[index] < 0 || hiddenLeft[index] == 0) {
+            return; // not a constraint any more, or nothing hidden around it
+        }
+        int row = index / cols;
+        int col = index - row * cols;
+        long maskA = hiddenMask(row, col, row, col);
+        if (minesLeft[index] == 0) {
+            apply(maskA, row, col, false);
+            return;
+        }
+        if (minesLeft[index] == hiddenLeft[index]) {
+            apply(maskA, row, col, true);
+            return;
+        }
+        for (int i = Math.max(row - 2, 0); i <= Math.min(row + 2, rows - 1); i++) {
+            for (int j = Math.max(col - 2, 0); j <= Math.min(col + 2, cols - 1); j++) {
+                int other = i * cols + j;
+                if (other == index || known[other] < 0 || hiddenLeft[other] == 0) {
+                    continue;
+                }
+                long maskB = hiddenMask(i, j, row, col);
+                if ((maskA & maskB) == 0) {
+                    continue; // nothing shared, the pair says nothing new
+                }
+                if (applyPair(index, maskA, other, maskB, row, col)
+                        || applyPair(other, maskB, index, maskA, row, col)) {
+                    return; // the board changed, this constraint is queued again if still useful
+                }
+            }
+        }
+    }
+
+    /**
+     * Pair rule: if B needs exactly as many more mines than A as it has cells outside A,
+     * those cells are mines and A's cells outside B are safe.
+     * @return true if any move was made
+     */
+    private boolean applyPair(int a, long maskA, int b, long maskB, int windowRow, int windowCol) {
+        long onlyA = maskA & ~maskB;
+        long onlyB = maskB & ~maskA;
+        if (minesLeft[b] - minesLeft[a] != Long.bitCount(onlyB)) {
+            return false;
+        }
+        if (onlyA == 0 && onlyB == 0) {
+            return false;
+        }
+        apply(onlyB, windowRow, windowCol, true);
+        apply(onlyA, windowRow, windowCol, false);
+        return true;
+    }
+
+    /**
+     * Last resort once every constraint is exhausted: if no mines are left every hidden cell is safe,
+     * if every hidden cell must be a mine they are all flagged.
+     * @return true if any move was made
+     */
+    private boolean applyGlobalRule() {
+        int minesRemaining = game.getNumberOfMinesLeft();
+        if (hiddenCells == 0 || (minesRemaining != 0 && minesRemaining != hiddenCells)) {
+            return false;
+        }
+        int action = minesRemaining != 0 ? MineSweeper.MOVE_FLAG : MineSweeper.MOVE_REVEAL;
+        int count = 0;
+        for (int index = 0; index < known.length; index++) {
+            if (known[index] == HIDDEN) {
+                moves[count++] = index << 1 | action;
+            }
+        }
+        applyMoves(count);
+        return true;
+    }
+
+    /**
+     * Builds a bit mask of the hidden neighbours of a cell, placed in the 7x7 window around another cell.
+     * @param row row of the cell whose neighbours are wanted
+     * @param col column of the cell whose neighbours are wanted
+     * @param windowRow row of the centre of the window
+     * @param windowCol column of the centre of the window
+     * @return mask with one bit per hidden neighbour
+     */
+    private long hiddenMask(int row, int col, int windowRow, int windowCol) {
+        long mask = 0;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                if (known[i * cols + j] == HIDDEN) {
+                    mask |= 1L << ((i - windowRow + WINDOW_CENTRE) * WINDOW + (j - windowCol + WINDOW_CENTRE));
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Reveals or flags every cell in a window mask that is still hidden, as one batch of moves.
+     */
+    private void apply(long mask, int windowRow, int windowCol, boolean mines) {
+        int action = mines ? MineSweeper.MOVE_FLAG : MineSweeper.MOVE_REVEAL;
+        int count = 0;
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            int row = windowRow + bit / WINDOW - WINDOW_CENTRE;
+            int col = windowCol + bit % WINDOW - WINDOW_CENTRE;
+            int index = row * cols + col;
+            if (known[index] == HIDDEN) {
+                moves[count++] = index << 1 | action;
+            }
+        }
+        applyMoves(count);
+    }
+
+    /**
+     * Sends the first count packed moves to the game in one call and takes in what changed.
+     * A reveal can open cells a later move in the batch was going to reveal, the game just
+     * answers REVEALED_NODE for those, so only moves that changed something are counted.
+     */
+    private void applyMoves(int count) {
+        if (count == 0) {
+            return;
+        }
+        int applied = game.applyMoves(moves, count, moveResults);
+        for (int i = 0; i < applied; i++) {
+            if (moveResults[i] == MineSweeperMessages.NODE_NOW_REVEALED.ordinal()) {
+                safeReveals++;
+            } else if (moveResults[i] == MineSweeperMessages.FLAGGED_NODE.ordinal()) {
+                flagsPlaced++;
+            }
+        }
+        readChanges();
+    }
+
+    /**
+     * Takes in the cells changed by the last move or batch, updating only the constraints around them.
+     */
+    private void readChanges() {
+        CellChanges changes = game.getLastChanges();
+        for (int i = 0; i < changes.size(); i++) {
+            int index = changes.getIndex(i);
+            MineSweeperMessages state = changes.getState(i);
+            if (known[index] != HIDDEN) {
+                continue; // already known, e.g. the bombs flagged when the game is won
+            }
+            if (state == MineSweeperMessages.REVEALED_NODE) {
+                known[index] = (byte) changes.getBombsNearby(i);
+                hiddenCells--;
+                neighbourResolved(index, false);
+                rebuildConstraint(index);
+            } else if (state == MineSweeperMessages.FLAGGED_NODE) {
+                known[index] = MINE;
+                hiddenCells--;
+                neighbourResolved(index, true);
+            }
+        }
+    }
+
+    /**
+     * Tells the revealed cells around a cell that it is no longer hidden.
+     * @param index the cell that was revealed or flagged
+     * @param mine true if it was flagged
+     */
+    private void neighbourResolved(int index, boolean mine) {
+        int row = index / cols;
+        int col = index - row * cols;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                int neighbour = i * cols + j;
+                if (known[neighbour] >= 0) {
+                    hiddenLeft[neighbour]--;
+                    if (mine) {
+                        minesLeft[neighbour]--;
+                    }
+                    enqueue(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the hidden and flagged neighbours of a revealed cell and queues it.
+     * @param index the revealed cell
+     */
+    private void rebuildConstraint(int index) {
+        int row = index / cols;
+        int col = index - row * cols;
+        int hidden = 0;
+        int flagged = 0;
+        for (int i = Math.max(row - 1, 0); i <= Math.min(row + 1, rows - 1); i++) {
+            for (int j = Math.max(col - 1, 0); j <= Math.min(col + 1, cols - 1); j++) {
+                byte neighbour = known[i * cols + j];
+                if (neighbour == HIDDEN) {
+                    hidden++;
+                } else if (neighbour == MINE) {
+                    flagged++;
+                }
+            }
+        }
+        hiddenLeft[index] = (byte) hidden;
+        minesLeft[index] = (byte) (known[index] - flagged);
+        if (hidden > 0) {
+            enqueue(index);
+        }
+    }
+
+    private void enqueue(int index) {
+        if (!queued[index]) {
+            queued[index] = true;
+            workStack[stackTop++] = index;
+        }
+    }
+
+    /**
+     * Gets the number of cells the solver revealed itself.
+     * @return number of safe reveals
+     */
+    public int getSafeReveals() {
+        return safeReveals;
+    }
+
+    /**
+     * Gets the number of flags the solver placed.
+     * @return number of flags placed
+     */
+    public int getFlagsPlaced() {
+        return flagsPlaced;
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.SplittableRandom;
+
+/**
+ * Check run for MineSweeper.moveMine: plays many seeded games, moves random hidden mines to random
+ * hidden safe cells and records every move in a GameHistory. After each move the nearby counts are
+ * counted again from scratch and the history's version is compared with the game, which only holds
+ * if getLastChanges listed every cell the move changed. Each game must lose its board code, keep
+ * that through a save and load, and come back to the seed's board once every move is undone.
+ */
+public class MoveMineCheck {
+
+    /**
+     * Command line entry, reached with Main --check-moves.
+     * Options: --rows R, --cols C, --mines M, --games N, --moves N (per game), --seed S
+     * @param args options as above
+     */
+    public static void main(String[] args) {
+        int rows = 16;
+        int cols = 30;
+        int mines = 99;
+        int games = 1000;
+        int moves = 50;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(value);
+                case "--cols" -> cols = Integer.parseInt(value);
+                case "--mines" -> mines = Integer.parseInt(value);
+                case "--games" -> games = Integer.parseInt(value);
+                case "--moves" -> moves = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        System.out.printf("%d games, %d mine moves each, on %dx%d with %d mines%n", games, moves, rows, cols, mines);
+        SplittableRandom random = new SplittableRandom(seed);
+        int failed = 0;
+        for (int g = 0; g < games; g++) {
+            String problem = run(rows, cols, mines, moves, random.split());
+            if (problem != null) {
+                failed++;
+                System.out.println("Game " + g + ": " + problem);
+            }
+        }
+        System.out.println(failed == 0 ? "Check passed" : failed + " games FAILED");
+        if (failed != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks one game.
+     * @return what went wrong, or null if the game passed
+     */
+    static String run(int rows, int cols, int mines, int moves, SplittableRandom random) {
+        MineSweeper game = new MineSweeper(rows, cols, mines, random.nextLong());
+        game.setInstrumented(false);
+        game.startGame(random.nextInt(rows), random.nextInt(cols));
+        BoardCode code = game.getBoardCode();
+        GameHistory history = new GameHistory(game);
+        int made = 0;
+        for (int m = 0; m < moves && game.getGameStatus() == MineSweeperMessages.GAME_ONGOING; m++) {
+            int from = pick(game, MineSweeperMessages.BOMB_AND_HIDDEN, random);
+            int to = pick(game, MineSweeperMessages.EMPTY_NODE, random);
+            if (from < 0 || to < 0) {
+                break; // no hidden mine or no hidden safe cell left
+            }
+            game.moveMine(from / cols, from % cols, to / cols, to % cols);
+            history.record();
+            made++;
+            String problem = checkCounts(game);
+            if (problem == null && differences(history.getCurrentBoard(), game.toPersistentBoard()) != 0) {
+                problem = "history version differs from the game after move " + m;
+            }
+            if (problem == null && game.getBoardCode() != null) {
+                problem = "board code kept after move " + m;
+            }
+            if (problem != null) {
+                return problem;
+            }
+        }
+        if (made == 0) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            game.toSnapshot().write(Channels.newChannel(out));
+            GameSnapshot loaded = GameSnapshot.read(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+            if (MineSweeper.fromSnapshot(loaded).getBoardCode() != null) {
+                return "board code came back after a save and load";
+            }
+        } catch (IOException e) {
+            return "save and load failed: " + e.getMessage();
+        }
+        while (history.undo()) {
+            // back to the board the seed made
+        }
+        MineSweeper fresh = code.startGame();
+        if (differences(fresh.toPersistentBoard(), game.toPersistentBoard()) != 0) {
+            return "undoing every move does not give the seed's board back";
+        }
+        return null;
+    }
+
+    /**
+     * Picks a random cell in the given state.
+     * @return index of the cell, or -1 if there is none
+     */
+    private static int pick(MineSweeper game, MineSweeperMessages state, SplittableRandom random) {
+        int cols = game.getCols();
+        int size = game.getRows() * cols;
+        int offset = random.nextInt(size);
+        for (int i = 0; i < size; i++) {
+            int index = (offset + i) % size;
+            if (game.getNode(index / cols, index % cols) == state) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the mines around every cell again and compares them with the game's counts.
+     * @return the first wrong count found, or null if all are right
+     */
+    private static String checkCounts(MineSweeper game) {
+        for (int row = 0; row < game.getRows(); row++) {
+            for (int col = 0; col < game.getCols(); col++) {
+                int count = 0;
+                for (int i = row - 1; i <= row + 1; i++) {
+                    for (int j = col - 1; j <= col + 1; j++) {
+                        if ((i != row || j != col) && !game.isOutOfBounds(i, j) && isMine(game.getNode(i, j))) {
+                            count++;
+                        }
+                    }
+                }
+                if (game.howManyBombsNearbyTile(row, col) != count) {
+                    return "count at (" + row + ", " + col + ") is " + game.howManyBombsNearbyTile(row, col)
+                            + " instead of " + count;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMine(MineSweeperMessages state) {
+        return state == MineSweeperMessages.BOMB_AND_HIDDEN || state == MineSweeperMessages.BOMB_AND_REVEALED;
+    }
+
+    private static int differences(PersistentBoard a, PersistentBoard b) {
+        int[] count = { 0 };
+        a.diff(b, (index, cell) -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds boards that can be solved from the first click without ever guessing.
+ * Candidate boards are just seeds: each worker thread makes the board for a seed, starts it on the
+ * first click and lets a MineSweeperSolver play it. The first seed whose board the solver wins is
+ * returned and the other workers are stopped.
+ * Because a seed and a starting cell always give the same board, the result can be played with
+ * new MineSweeper(rows, cols, mineCount, seed) and shared as a normal board code.
+ */
+public class NoGuessGenerator {
+    private final int rows;
+    private final int cols;
+    private final int mineCount;
+    private final int threads;
+
+    /**
+     * Constructor for NoGuessGenerator, using one worker per core.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param mineCount number of mines
+     */
+    public NoGuessGenerator(int rows, int cols, int mineCount) {
+        this(rows, cols, mineCount, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for NoGuessGenerator.
+     * @param rows number of rows
+     * @param cols number of columns
+     * @param mineCount number of mines
+     * @param threads number of worker threads
+     */
+    public NoGuessGenerator(int rows, int cols, int mineCount, int threads) {
+        MineSweeper.checkBoard(rows, cols, mineCount); // same checks as a real game
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.mineCount = mineCount;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches for a no-guess board started on the given cell.
+     * @param startRow row of the first click
+     * @param startCol column of the first click
+     * @param timeoutMillis how long to search before giving up
+     * @return seed of a board the solver wins without guessing, or empty if none was found in time,
+     *         e.g. because the board is too dense
+     * @throws IllegalStateException if the workers failed, with the cause of the failure, or the search was interrupted
+     */
+    public OptionalLong findSeed(int startRow, int startCol, long timeoutMillis) {
+        MineSweeper.checkStart(rows, cols, mineCount, startRow, startCol); // same checks as startGame
+        EngineEvents.NoGuessSearch event = new EngineEvents.NoGuessSearch();
+        event.begin();
+        long start = EngineMetrics.start();
+        LongAdder boardsTried = new LongAdder();
+        boolean found = false;
+        SplittableRandom seeds = new SplittableRandom();
+        List<Callable<Long>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = seeds.split(); // every worker tries its own seeds
+            workers.add(() -> search(startRow, startCol, random, boardsTried));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long seed = pool.invokeAny(workers, timeoutMillis, TimeUnit.MILLISECONDS);
+            found = true;
+            return OptionalLong.of(seed);
+        } catch (TimeoutException e) {
+            return OptionalLong.empty(); // expected on dense boards, not an error
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("No-guess search failed", e.getCause()); // every worker threw
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while looking for a no-guess board");
+        } finally {
+            pool.shutdownNow(); // invokeAny already cancelled the losers, this just frees the threads
+            EngineMetrics.NO_GUESS_NANOS.recordSince(start);
+            EngineMetrics.NO_GUESS_BOARDS.record(boardsTried.sum());
+            if (event.shouldCommit()) {
+                event.boardsTried = boardsTried.sum();
+                event.found = found;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Worker loop, tries seeds until one is solvable or the worker is cancelled.
+     * One solver is reused for every candidate so the loop barely allocates beyond the boards.
+     */
+    private long search(int startRow, int startCol, SplittableRandom random, LongAdder boardsTried)
+            throws InterruptedException {
+        MineSweeperSolver solver = null;
+        while (!Thread.currentThread().isInterrupted()) {
+            long seed = random.nextLong();
+            boardsTried.increment();
+            MineSweeper game = new MineSweeper(rows, cols, mineCount, seed);
+            game.setInstrumented(false); // candidates are counted by the search's own event, not as games
+            game.startGame(startRow, startCol);
+            if (solver == null) {
+                solver = new MineSweeperSolver(game);
+            } else {
+                solver.reset(game);
+            }
+            if (solver.solve() == MineSweeperMessages.GAME_WON) {
+                return seed;
+            }
+        }
+        throw new InterruptedException();
+    }
+}
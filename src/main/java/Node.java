@@ -1,57 +1,57 @@
+/**
+ * A view of a single cell in a MineGrid.
+ * Holds no state of its own, every getter and setter goes straight to the grid's packed storage.
+ */
 public class Node {
-    private int bombsNearby;
-    private boolean isBomb;
-    private boolean isRevealed;
-    private boolean isFlagged;
+    private final MineGrid grid;
+    private final int index;
 
-    public Node() {
-        this.bombsNearby = 0;
-        this.isBomb = false;
-        this.isRevealed = false;
-        this.isFlagged = false;
+    public Node(MineGrid grid, int index) {
+        this.grid = grid;
+        this.index = index;
     }
 
     public int getBombsNearby() {
-        return bombsNearby;
+        return grid.getBombsNearby(index);
     }
 
     public void setBombsNearby(int bombsNearby) {
-        this.bombsNearby = bombsNearby;
+        grid.setBombsNearby(index, bombsNearby);
     }
 
     public boolean isBomb() {
-        return isBomb;
+        return grid.isBomb(index);
     }
 
     public void setBomb(boolean isBomb) {
-        this.isBomb = isBomb;
+        grid.setBomb(index, isBomb);
     }
 
     public boolean isRevealed() {
-        return isRevealed;
+        return grid.isRevealed(index);
     }
 
     public void setRevealed(boolean isRevealed) {
-        this.isRevealed = isRevealed;
+        grid.setRevealed(index, isRevealed);
     }
 
     public boolean isFlagged() {
-        return isFlagged;
+        return grid.isFlagged(index);
     }
 
     public void setFlagged(boolean isFlagged) {
-        this.isFlagged = isFlagged;
+        grid.setFlagged(index, isFlagged);
     }
 
     @Override
     public String toString() {
-        if (isRevealed) {
-            if (isBomb) {
+        if (isRevealed()) {
+            if (isBomb()) {
                 return "B"; // Bomb
             } else {
-                return String.valueOf(bombsNearby); // Number of bombs nearby
+                return String.valueOf(getBombsNearby()); // Number of bombs nearby
             }
-        } else if (isFlagged) {
+        } else if (isFlagged()) {
             return "F"; // Flagged
         } else {
             return "."; // Hidden
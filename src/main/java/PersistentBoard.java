@@ -0,0 +1,236 @@
+import java.util.Arrays;
+
+/**
+ * Immutable board of packed cell bytes, where every change makes a new version that shares all
+ * unchanged parts with the old one.
+ * Cells live in leaves of 64, under a tree of nodes with 32 children each. Changing cells copies
+ * only the leaves they are in and the nodes above them, so a move costs memory in proportion to
+ * the cells it changed, not the board: one flag on a 1000x1000 board copies about 500 bytes.
+ * Parts of the board that are all zero share one leaf and one node per level.
+ * Used by GameHistory for undo and redo, and cheap enough to branch hypothetical boards from.
+ */
+public final class PersistentBoard {
+    private static final int LEAF_BITS = 6;
+    private static final int LEAF_SIZE = 1 << LEAF_BITS;
+    private static final int BRANCH_BITS = 5;
+    private static final int BRANCH_SIZE = 1 << BRANCH_BITS;
+
+    private final int size;
+    private final int levels; // node levels above the leaves, 0 when the root is a single leaf
+    private final Object root; // byte[] leaf when levels is 0, otherwise Object[] node
+
+    /**
+     * Called for every cell that differs between two boards, see diff.
+     */
+    public interface CellVisitor {
+        void visit(int index, int cell);
+    }
+
+    private PersistentBoard(int size, int levels, Object root) {
+        this.size = size;
+        this.levels = levels;
+        this.root = root;
+    }
+
+    /**
+     * Makes a board of hidden empty cells, sharing one zero leaf so it takes almost no memory.
+     * @param size number of cells
+     * @return the empty board
+     */
+    public static PersistentBoard empty(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Board must have at least one cell");
+        }
+        int levels = levelsFor(size);
+        Object node = new byte[LEAF_SIZE];
+        for (int level = 0; level < levels; level++) {
+            Object[] parent = new Object[BRANCH_SIZE];
+            Arrays.fill(parent, node);
+            node = parent;
+        }
+        return new PersistentBoard(size, levels, node);
+    }
+
+    /**
+     * Copies a grid into a new board. Leaves that are all zero share the empty leaf.
+     * @param grid grid to copy
+     * @return board with the same cells
+     */
+    static PersistentBoard of(MineGrid grid) {
+        PersistentBoard empty = empty(grid.getSize());
+        Object root = build(empty.root, empty.levels, grid, 0);
+        return new PersistentBoard(empty.size, empty.levels, root);
+    }
+
+    private static Object build(Object emptyNode, int level, MineGrid grid, int first) {
+        int size = grid.getSize();
+        if (level == 0) {
+            byte[] leaf = null;
+            int last = Math.min(first + LEAF_SIZE, size);
+            for (int i = first; i < last; i++) {
+                int cell = grid.getCell(i);
+                if (cell != 0) {
+                    if (leaf == null) {
+                        leaf = new byte[LEAF_SIZE];
+                    }
+                    leaf[i - first] = (byte) cell;
+                }
+            }
+            return leaf == null ? emptyNode : leaf;
+        }
+        Object emptyChild = ((Object[]) emptyNode)[0];
+        int span = LEAF_SIZE << ((level - 1) * BRANCH_BITS); // cells under one child
+        Object[] node = null;
+        for (int child = 0; child < BRANCH_SIZE && first + (long) child * span < size; child++) {
+            Object built = build(emptyChild, level - 1, grid, first + child * span);
+            if (built != emptyChild) {
+                if (node == null) {
+                    node = ((Object[]) emptyNode).clone();
+                }
+                node[child] = built;
+            }
+        }
+        return node == null ? emptyNode : node;
+    }
+
+    private static int levelsFor(int size) {
+        long leaves = (size + LEAF_SIZE - 1L) >>> LEAF_BITS;
+        int levels = 0;
+        for (long capacity = 1; capacity < leaves; capacity <<= BRANCH_BITS) {
+            levels++;
+        }
+        return levels;
+    }
+
+    /**
+     * Gets the packed byte of a cell.
+     * @param index row-major index of the cell
+     * @return packed cell, see MineGrid for the layout
+     */
+    public int get(int index) {
+        checkIndex(index);
+        Object node = root;
+        for (int level = levels; level > 0; level--) {
+            node = ((Object[]) node)[(index >>> shiftFor(level)) & (BRANCH_SIZE - 1)];
+        }
+        return ((byte[]) node)[index & (LEAF_SIZE - 1)];
+    }
+
+    /**
+     * Makes a new version with one cell changed.
+     * @param index row-major index of the cell
+     * @param cell new packed cell byte
+     * @return the new version, this board is unchanged
+     */
+    public PersistentBoard with(int index, int cell) {
+        checkIndex(index);
+        return new PersistentBoard(size, levels, set(root, levels, index, (byte) cell));
+    }
+
+    private static Object set(Object node, int level, int index, byte cell) {
+        if (level == 0) {
+            byte[] leaf = ((byte[]) node).clone();
+            leaf[index & (LEAF_SIZE - 1)] = cell;
+            return leaf;
+        }
+        Object[] copy = ((Object[]) node).clone();
+        int child = (index >>> shiftFor(level)) & (BRANCH_SIZE - 1);
+        copy[child] = set(copy[child], level - 1, index, cell);
+        return copy;
+    }
+
+    /**
+     * Makes a new version with every listed change applied, copying each touched leaf and node once.
+     * Where a cell is listed twice the later entry wins, as in CellChanges.
+     * @param changes changed cells, e.g. the last changes of a game
+     * @return the new version, or this board if there are no changes
+     */
+    public PersistentBoard with(CellChanges changes) {
+        int count = changes.size();
+        if (count == 0) {
+            return this;
+        }
+        long[] order = new long[count]; // index in the high half, position in the low half keeps later entries last
+        for (int i = 0; i < count; i++) {
+            int index = changes.getIndex(i);
+            checkIndex(index);
+            order[i] = (long) index << 32 | i;
+        }
+        Arrays.sort(order);
+        return new PersistentBoard(size, levels, update(root, levels, order, changes, 0, count));
+    }
+
+    private static Object update(Object node, int level, long[] order, CellChanges changes, int from, int to) {
+        if (level == 0) {
+            byte[] leaf = ((byte[]) node).clone();
+            for (int i = from; i < to; i++) {
+                leaf[(int) (order[i] >>> 32) & (LEAF_SIZE - 1)] = (byte) changes.getCell((int) order[i]);
+            }
+            return leaf;
+        }
+        Object[] copy = ((Object[]) node).clone();
+        int shift = shiftFor(level);
+        int i = from;
+        while (i < to) {
+            int child = (int) (order[i] >>> 32 >>> shift) & (BRANCH_SIZE - 1);
+            int j = i + 1;
+            while (j < to && ((int) (order[j] >>> 32 >>> shift) & (BRANCH_SIZE - 1)) == child) {
+                j++;
+            }
+            copy[child] = update(copy[child], level - 1, order, changes, i, j);
+            i = j;
+        }
+        return copy;
+    }
+
+    /**
+     * Visits every cell whose byte differs in another version of the same board.
+     * Parts both versions share are skipped without looking inside, so the cost follows the
+     * number of changes between them rather than the board size.
+     * @param other board to compare with, of the same size
+     * @param visitor called with each differing cell's index and its byte in other
+     */
+    public void diff(PersistentBoard other, CellVisitor visitor) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Boards are different sizes");
+        }
+        diff(root, other.root, levels, 0, visitor);
+    }
+
+    private void diff(Object mine, Object theirs, int level, int first, CellVisitor visitor) {
+        if (mine == theirs) {
+            return;
+        }
+        if (level == 0) {
+            byte[] a = (byte[]) mine;
+            byte[] b = (byte[]) theirs;
+            int last = Math.min(LEAF_SIZE, size - first);
+            for (int i = 0; i < last; i++) {
+                if (a[i] != b[i]) {
+                    visitor.visit(first + i, b[i]);
+                }
+            }
+            return;
+        }
+        Object[] a = (Object[]) mine;
+        Object[] b = (Object[]) theirs;
+        int span = LEAF_SIZE << ((level - 1) * BRANCH_BITS);
+        for (int child = 0; child < BRANCH_SIZE && first + (long) child * span < size; child++) {
+            diff(a[child], b[child], level - 1, first + child * span, visitor);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int shiftFor(int level) {
+        return LEAF_BITS + (level - 1) * BRANCH_BITS;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Cell " + index + " is outside the board");
+        }
+    }
+}
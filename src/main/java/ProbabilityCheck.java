@@ -0,0 +1,98 @@
+import java.util.SplittableRandom;
+
+/**
+ * Check run for MineProbabilityCalculator on large boards: starts seeded games without flags,
+ * reveals scattered safe cells so the frontier breaks into components too big to enumerate, and
+ * asks for the probabilities. With no flags on the board a calculation must never fail, every
+ * probability must be between 0 and 1, and they must add up to the mines left, estimated or not.
+ */
+public class ProbabilityCheck {
+
+    /**
+     * Command line entry, reached with Main --check-hints.
+     * Options: --rows R, --cols C, --mines M, --games N, --reveals N (per game), --seed S
+     * @param args options as above
+     */
+    public static void main(String[] args) {
+        int rows = 50;
+        int cols = 50;
+        int mines = 375;
+        int games = 10;
+        int reveals = 0; // 0 reveals a tenth of the safe cells
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(value);
+                case "--cols" -> cols = Integer.parseInt(value);
+                case "--mines" -> mines = Integer.parseInt(value);
+                case "--games" -> games = Integer.parseInt(value);
+                case "--reveals" -> reveals = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (reveals == 0) {
+            reveals = (rows * cols - mines) / 10;
+        }
+        System.out.printf("%d games on %dx%d with %d mines, %d scattered reveals each%n", games, rows, cols, mines,
+                reveals);
+        SplittableRandom random = new SplittableRandom(seed);
+        int failed = 0;
+        int estimated = 0;
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            MineProbabilityCalculator calculator = new MineProbabilityCalculator();
+            String problem = run(rows, cols, mines, reveals, random.split(), calculator);
+            if (problem != null) {
+                failed++;
+                System.out.println("Game " + g + ": " + problem);
+            } else if (!calculator.isExact()) {
+                estimated++;
+            }
+        }
+        System.out.printf("%d of %d calculations were estimated, %.2f s%n", estimated, games - failed,
+                (System.nanoTime() - start) / 1e9);
+        System.out.println(failed == 0 ? "Check passed" : failed + " games FAILED");
+        if (failed != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Checks one game.
+     * @return what went wrong, or null if the game passed
+     */
+    static String run(int rows, int cols, int mines, int reveals, SplittableRandom random,
+            MineProbabilityCalculator calculator) {
+        MineSweeper game = new MineSweeper(rows, cols, mines, random.nextLong());
+        game.setInstrumented(false);
+        game.startGame(random.nextInt(rows), random.nextInt(cols));
+        for (int r = 0; r < reveals && game.getGameStatus() == MineSweeperMessages.GAME_ONGOING; r++) {
+            int index = random.nextInt(rows * cols);
+            if (game.getNode(index / cols, index % cols) == MineSweeperMessages.EMPTY_NODE) {
+                game.revealNode(index / cols, index % cols); // only safe cells, so the game goes on
+            }
+        }
+        if (game.getGameStatus() != MineSweeperMessages.GAME_ONGOING) {
+            return null;
+        }
+        double[] probabilities;
+        try {
+            probabilities = calculator.calculate(game);
+        } catch (IllegalStateException e) {
+            return "calculation failed without any flags: " + e.getMessage();
+        }
+        double sum = 0;
+        for (int i = 0; i < probabilities.length; i++) {
+            if (!(probabilities[i] >= 0 && probabilities[i] <= 1)) {
+                return "probability of cell " + i + " is " + probabilities[i];
+            }
+            sum += probabilities[i];
+        }
+        if (Math.abs(sum - game.getNumberOfMinesLeft()) > 1e-6 * game.getNumberOfMinesLeft() + 1e-6) {
+            return "probabilities add up to " + sum + " instead of " + game.getNumberOfMinesLeft();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,302 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Append-only record of every startGame, revealNode and flagNode call made on a game.
+ * Attach one with MineSweeper.setReplayLog. Each move is packed into a single long: milliseconds
+ * since the log was made, the cell index and the move type, so recording a move is one array store.
+ * The clock is read once per call, a batch from applyMoves shares one time.
+ * The board itself is not stored, the seed and the first click are enough to make it again.
+ * A log can also stream to a channel as it grows, records are then written in blocks.
+ *
+ * File layout, big-endian: magic "MSRL", version, rows, cols, mine count, seed, then one long per
+ * move until the end of the file.
+ */
+public class ReplayLog {
+    public static final int START = 0;
+    public static final int REVEAL = 1;
+    public static final int FLAG = 2;
+
+    private static final int MAGIC = 0x4D53524C; // "MSRL"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 4 + 4 + 4 + 8;
+    private static final int STREAM_BUFFER_RECORDS = 4096;
+
+    private final int rows;
+    private final int cols;
+    private final int mineCount;
+    private final long seed;
+    private final long startNanos;
+    private long[] records;
+    private int size;
+    private WritableByteChannel stream; // null unless streaming
+    private ByteBuffer streamBuffer;
+
+    /**
+     * Constructor for ReplayLog, for recording a game.
+     * @param game game the log is for, its moves are recorded once it is attached with setReplayLog
+     */
+    public ReplayLog(MineSweeper game) {
+        this(game.getRows(), game.getCols(), game.getMineCount(), game.getSeed());
+    }
+
+    private ReplayLog(int rows, int cols, int mineCount, long seed) {
+        this.rows = rows;
+        this.cols = cols;
+        this.mineCount = mineCount;
+        this.seed = seed;
+        this.startNanos = System.nanoTime();
+        this.records = new long[256];
+    }
+
+    /**
+     * Records a move. Called by MineSweeper on every move while the log is attached.
+     * @param type START, REVEAL or FLAG
+     * @param index row-major index of the cell
+     */
+    void record(int type, int index) {
+        record(type, index, millisNow());
+    }
+
+    /**
+     * Records a move made at a time already read with millisNow, so a batch of moves needs one clock read.
+     * @param type START, REVEAL or FLAG
+     * @param index row-major index of the cell
+     * @param millis milliseconds since the log was made
+     */
+    void record(int type, int index, long millis) {
+        long record = millis << 33 | (long) index << 2 | type;
+        if (size == records.length) {
+            records = Arrays.copyOf(records, size * 2);
+        }
+        records[size++] = record;
+        if (stream != null) {
+            streamBuffer.putLong(record);
+            if (!streamBuffer.hasRemaining()) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Reads the clock of the log.
+     * @return milliseconds since the log was made
+     */
+    long millisNow() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Starts writing the log to a channel: everything recorded so far now, and new moves in blocks.
+     * Call flush or stopStreaming to write the last block.
+     * @param channel channel to append to, e.g. a file opened for writing
+     * @throws IOException if writing fails
+     */
+    public void streamTo(WritableByteChannel channel) throws IOException {
+        write(channel);
+        stream = channel;
+        streamBuffer = ByteBuffer.allocate(STREAM_BUFFER_RECORDS * 8);
+    }
+
+    /**
+     * Writes any moves still waiting in the stream buffer.
+     * Moves are recorded in the middle of game calls, so a failed write is turned into an unchecked exception.
+     */
+    public void flush() {
+        if (stream == null) {
+            return;
+        }
+        streamBuffer.flip();
+        try {
+            while (streamBuffer.hasRemaining()) {
+                stream.write(streamBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        streamBuffer.clear();
+    }
+
+    /**
+     * Flushes and stops streaming, the channel is left open.
+     */
+    public void stopStreaming() {
+        flush();
+        stream = null;
+        streamBuffer = null;
+    }
+
+    /**
+     * Writes the whole log to a channel.
+     * @param channel channel to write to, left open
+     * @throws IOException if writing fails
+     */
+    public void write(WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * 8);
+        buffer.putInt(MAGIC).putShort(VERSION);
+        buffer.putInt(rows).putInt(cols).putInt(mineCount).putLong(seed);
+        buffer.asLongBuffer().put(records, 0, size);
+        buffer.position(buffer.capacity()).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a log from a channel, up to its end. A half written last move is ignored.
+     * The board and every move are checked here, so playing the log back can't fail part way.
+     * @param channel channel to read from, left open
+     * @return the log read
+     * @throws IOException if reading fails or the data is not a valid replay log
+     */
+    public static ReplayLog read(ReadableByteChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) {
+                throw new EOFException("Replay file is cut short");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a MineSweeper replay");
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version " + version);
+        }
+        int rows = header.getInt();
+        int cols = header.getInt();
+        int mineCount = header.getInt();
+        long seed = header.getLong();
+        if (rows > BoardCode.MAX_SIZE || cols > BoardCode.MAX_SIZE) {
+            throw new IOException("Corrupt replay header");
+        }
+        try {
+            MineSweeper.checkBoard(rows, cols, mineCount);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt replay header", e);
+        }
+        ReplayLog log = new ReplayLog(rows, cols, mineCount, seed);
+        ByteBuffer buffer = ByteBuffer.allocate(STREAM_BUFFER_RECORDS * 8);
+        while (channel.read(buffer) >= 0) {
+            if (buffer.position() < 8 && buffer.hasRemaining()) {
+                continue;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= 8) {
+                long record = buffer.getLong();
+                log.checkRecord(record);
+                if (log.size == log.records.length) {
+                    log.records = Arrays.copyOf(log.records, log.size * 2);
+                }
+                log.records[log.size++] = record;
+            }
+            buffer.compact();
+        }
+        return log;
+    }
+
+    /**
+     * Checks a move read from a file: a known type, a cell on the board, and a start the game accepts.
+     * @param record packed move
+     * @throws IOException if the move could not have been recorded on this board
+     */
+    private void checkRecord(long record) throws IOException {
+        int type = (int) (record & 3);
+        int index = (int) (record >>> 2) & Integer.MAX_VALUE;
+        if (type != START && type != REVEAL && type != FLAG) {
+            throw new IOException("Corrupt replay, move " + (size + 1) + " has an unknown type");
+        }
+        if (index >= rows * cols) {
+            throw new IOException("Corrupt replay, move " + (size + 1) + " is outside the board");
+        }
+        if (type == START) {
+            try {
+                MineSweeper.checkStart(rows, cols, mineCount, index / cols, index % cols);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Corrupt replay, move " + (size + 1) + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Saves the whole log to a file, replacing it if it exists.
+     * @param path file to write
+     * @throws IOException if writing fails
+     */
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel);
+        }
+    }
+
+    /**
+     * Loads a log from a file.
+     * @param path file to read
+     * @return the log read
+     * @throws IOException if reading fails or the file is not a replay log
+     */
+    public static ReplayLog load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * Makes the game the log was recorded on, before its first move.
+     * @return a fresh game with the same size, mines and seed
+     */
+    public MineSweeper newGame() {
+        return new MineSweeper(rows, cols, mineCount, seed);
+    }
+
+    /**
+     * Gets the number of moves recorded.
+     * @return number of moves
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getType(int i) {
+        return (int) (records[i] & 3);
+    }
+
+    public int getIndex(int i) {
+        return (int) (records[i] >>> 2) & Integer.MAX_VALUE;
+    }
+
+    public int getRow(int i) {
+        return getIndex(i) / cols;
+    }
+
+    public int getCol(int i) {
+        return getIndex(i) % cols;
+    }
+
+    /**
+     * Gets when a move was made.
+     * @param i move number
+     * @return milliseconds since the log was made
+     */
+    public long getTimeMillis(int i) {
+        return records[i] >>> 33;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a ReplayLog back on a fresh game, one move at a time, and can jump to any move.
+ * A snapshot of the game is kept every checkpointInterval moves as playback first passes them,
+ * so a jump restores the nearest checkpoint at or before the target and only replays the moves
+ * after it, instead of replaying from the first move.
+ * Works without a GUI, ReplayView draws it.
+ */
+public class ReplayPlayer {
+    private static final int MIN_CHECKPOINT_INTERVAL = 256;
+
+    private final ReplayLog log;
+    private final int checkpointInterval;
+    private final List<GameSnapshot> checkpoints = new ArrayList<>(); // checkpoint k is taken after k * interval moves
+    private MineSweeper game;
+    private int position; // moves applied so far
+
+    /**
+     * Constructor for ReplayPlayer with checkpoints spaced by board size.
+     * A snapshot costs time and memory in proportion to the cells, so big boards take one every
+     * cells / 64 moves, which keeps the snapshot work to a fraction of the move work.
+     * @param log log to play back
+     */
+    public ReplayPlayer(ReplayLog log) {
+        this(log, Math.max(MIN_CHECKPOINT_INTERVAL, log.getRows() * log.getCols() / 64));
+    }
+
+    /**
+     * Constructor for ReplayPlayer.
+     * @param log log to play back
+     * @param checkpointInterval moves between snapshots, smaller jumps faster but keeps more snapshots
+     */
+    public ReplayPlayer(ReplayLog log, int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+        }
+        this.log = log;
+        this.checkpointInterval = checkpointInterval;
+        this.game = log.newGame();
+        checkpoints.add(game.toSnapshot(0));
+    }
+
+    /**
+     * Applies the next move of the log.
+     * getLastChanges of the game lists the cells it changed.
+     * @return false if the log is already at its end
+     */
+    public boolean step() {
+        if (position >= log.size()) {
+            return false;
+        }
+        int row = log.getRow(position);
+        int col = log.getCol(position);
+        switch (log.getType(position)) {
+            case ReplayLog.START -> game.startGame(row, col);
+            case ReplayLog.FLAG -> game.flagNode(row, col);
+            default -> game.revealNode(row, col);
+        }
+        position++;
+        if (position % checkpointInterval == 0 && checkpoints.size() == position / checkpointInterval) {
+            checkpoints.add(game.toSnapshot(log.getTimeMillis(position - 1)));
+        }
+        return true;
+    }
+
+    /**
+     * Jumps to the point after the given number of moves.
+     * Moving forward by less than a checkpoint interval just steps, anything else restores a
+     * checkpoint first, in which case getGame returns a new game object. Call
+     * getGame().recordVisibleCells() afterwards to redraw the whole board.
+     * @param target number of moves to have applied, 0 to log size
+     */
+    public void seek(int target) {
+        if (target < 0 || target > log.size()) {
+            throw new IllegalArgumentException("Move " + target + " is outside the replay");
+        }
+        if (target < position || target - position >= checkpointInterval) {
+            int checkpoint = Math.min(target / checkpointInterval, checkpoints.size() - 1);
+            if (checkpoint * checkpointInterval > position || target < position) {
+                game = MineSweeper.fromSnapshot(checkpoints.get(checkpoint));
+                position = checkpoint * checkpointInterval;
+            }
+        }
+        while (position < target) {
+            step();
+        }
+    }
+
+    /**
+     * Gets the game as it is at the current position.
+     * @return the game, a new object after seek restores a checkpoint
+     */
+    public MineSweeper getGame() {
+        return game;
+    }
+
+    public ReplayLog getLog() {
+        return log;
+    }
+
+    /**
+     * Gets the number of moves applied so far.
+     * @return current position, 0 to size
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    public int size() {
+        return log.size();
+    }
+
+    /**
+     * Gets the time the next move was made, for playing back at the original pace.
+     * @return milliseconds since the recording started, or -1 at the end of the log
+     */
+    public long getNextMoveMillis() {
+        return position < log.size() ? log.getTimeMillis(position) : -1;
+    }
+}
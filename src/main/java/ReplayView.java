@@ -0,0 +1,184 @@
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
+import javafx.scene.control.Slider;
+import javafx.scene.image.Image;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+
+/**
+ * Plays a recorded game back on a canvas board
+ * Moves are made at the pace they were recorded, times the chosen speed
+ * The slider jumps to any move, ReplayPlayer keeps checkpoints so a jump stays quick
+ */
+public class ReplayView {
+    private static final String[] SPEEDS = { "0.5x", "1x", "2x", "4x", "8x", "32x" };
+
+    private final ReplayPlayer player;
+    private BoardCanvas boardCanvas;
+    private Label moveLabel;
+    private Label statusLabel;
+    private Button playButton;
+    private Slider positionSlider;
+    private double speed = 1;
+    private double replayMillis; // replay clock, in recorded milliseconds
+    private long lastFrameNanos; // 0 until the first frame after play is pressed
+    private boolean playing;
+    private boolean movingSlider; // set while playback moves the slider, so it is not taken as a jump
+    private final Image flagImage = new Image(getClass().getResource("/images/flag.png").toExternalForm());
+    private final Image bombImage = new Image(getClass().getResource("/images/mine.png").toExternalForm());
+
+    private final AnimationTimer playback = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            advance(now);
+        }
+    };
+
+    public ReplayView(ReplayLog log) {
+        this.player = new ReplayPlayer(log);
+    }
+
+    /**
+     * Create and return the replay view
+     * Consists of the move label, the board, and the playback controls
+     * @return Parent node containing the replay view
+     */
+    public Parent getView() {
+        moveLabel = new Label();
+        moveLabel.getStyleClass().add("section-header");
+        HBox topBox = new HBox(20, moveLabel);
+        topBox.setMaxWidth(Region.USE_PREF_SIZE);
+        topBox.setAlignment(Pos.CENTER);
+        topBox.getStyleClass().add("game-view-box");
+
+        ReplayLog log = player.getLog();
+        boardCanvas = new BoardCanvas(log.getRows(), log.getCols(), flagImage, bombImage);
+        boardCanvas.setInteractive(false);
+
+        playButton = new Button("Play");
+        playButton.setFocusTraversable(false);
+        playButton.setOnAction(e -> togglePlayback());
+        ComboBox<String> speedBox = new ComboBox<>();
+        speedBox.getItems().addAll(SPEEDS);
+        speedBox.setValue("1x");
+        speedBox.setOnAction(e -> speed = Double.parseDouble(speedBox.getValue().replace("x", "")));
+        positionSlider = new Slider(0, player.size(), 0);
+        positionSlider.setPrefWidth(300);
+        positionSlider.valueProperty().addListener((obs, oldValue, newValue) -> {
+            if (!movingSlider) {
+                jumpTo(newValue.intValue());
+            }
+        });
+        statusLabel = new Label();
+        statusLabel.getStyleClass().add("detail-label");
+        HBox controlBox = new HBox(20, playButton, speedBox, positionSlider, statusLabel);
+        controlBox.setMaxWidth(Region.USE_PREF_SIZE);
+        controlBox.setAlignment(Pos.CENTER);
+        controlBox.getStyleClass().add("game-view-box");
+
+        BorderPane root = new BorderPane();
+        VBox topSection = new VBox(10, topBox, new Separator());
+        VBox centerSection = new VBox(10, boardCanvas);
+        VBox.setVgrow(boardCanvas, Priority.ALWAYS);
+        VBox bottomSection = new VBox(10, new Separator(), controlBox);
+        topSection.getStyleClass().add("top-section");
+        bottomSection.getStyleClass().add("bottom-section");
+        topSection.setAlignment(Pos.CENTER);
+        centerSection.setAlignment(Pos.CENTER);
+        bottomSection.setAlignment(Pos.CENTER);
+        root.setCenter(centerSection);
+        root.setTop(topSection);
+        root.setBottom(bottomSection);
+
+        // stop the animation once the view is replaced
+        root.parentProperty().addListener((obs, oldParent, newParent) -> {
+            if (newParent == null) {
+                playback.stop();
+            }
+        });
+        updateLabels();
+        return root;
+    }
+
+    /**
+     * Start or pause playback, starting again from the first move once the end is reached
+     */
+    private void togglePlayback() {
+        if (playing) {
+            pause();
+            return;
+        }
+        if (player.getPosition() == player.size()) {
+            jumpTo(0);
+        }
+        playing = true;
+        playButton.setText("Pause");
+        playback.start();
+    }
+
+    private void pause() {
+        playback.stop();
+        playing = false;
+        lastFrameNanos = 0;
+        playButton.setText("Play");
+    }
+
+    /**
+     * Move the replay clock on by one frame and make every move that is now due
+     * @param now time of the frame in nanoseconds
+     */
+    private void advance(long now) {
+        if (lastFrameNanos == 0) {
+            lastFrameNanos = now;
+            return;
+        }
+        replayMillis += (now - lastFrameNanos) / 1_000_000.0 * speed;
+        lastFrameNanos = now;
+        long next = player.getNextMoveMillis();
+        while (next >= 0 && next <= replayMillis) {
+            player.step();
+            boardCanvas.applyChanges(player.getGame().getLastChanges());
+            next = player.getNextMoveMillis();
+        }
+        if (next < 0) {
+            pause();
+        }
+        updateLabels();
+    }
+
+    /**
+     * Jump to a move and draw the whole board as it was then
+     * @param move number of moves to have made
+     */
+    private void jumpTo(int move) {
+        player.seek(move);
+        replayMillis = move == 0 ? 0 : player.getLog().getTimeMillis(move - 1);
+        boardCanvas.showCells(player.getGame().recordVisibleCells());
+        updateLabels();
+    }
+
+    /**
+     * Show the current move, mines left and game status, and move the slider along
+     */
+    private void updateLabels() {
+        MineSweeper game = player.getGame();
+        moveLabel.setText("Replay: move " + player.getPosition() + " of " + player.size());
+        String status = switch (game.getGameStatus()) {
+            case GAME_WON -> "Won";
+            case GAME_OVER -> "Lost";
+            default -> "Mines left: " + game.getNumberOfMinesLeft();
+        };
+        statusLabel.setText(status);
+        movingSlider = true;
+        positionSlider.setValue(player.getPosition());
+        movingSlider = false;
+    }
+}
@@ -1,5 +1,13 @@
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import java.io.File;
+import java.io.IOException;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.TextInputDialog;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
@@ -10,6 +18,7 @@ public class SceneManager {
     private final Stage stage;
     private final Scene scene;
     private final BorderPane root; // permanent root
+    private GameView currentGame; // null while the menu is shown
 
 
     public SceneManager(Stage stage) {
@@ -23,11 +32,47 @@ public class SceneManager {
         // connect stylesheet
         scene.getStylesheets().add(getClass().getResource("style.css").toExternalForm());
         stage.setScene(scene);
+        // the clock does not count time while the window is minimised
+        stage.iconifiedProperty().addListener((observable, wasIconified, iconified) -> {
+            if (currentGame != null) {
+                currentGame.setPaused(iconified);
+            }
+        });
     }
 
     private MenuBar createMenuBar() {
         MenuBar menuBar = new MenuBar();
 
+        // File menu
+        Menu fileMenu = new Menu("File");
+        MenuItem saveItem = new MenuItem("Save Game...");
+        saveItem.setOnAction(e -> saveGame());
+        MenuItem loadItem = new MenuItem("Load Game...");
+        loadItem.setOnAction(e -> loadGame());
+        MenuItem saveReplayItem = new MenuItem("Save Replay...");
+        saveReplayItem.setOnAction(e -> saveReplay());
+        MenuItem openReplayItem = new MenuItem("Open Replay...");
+        openReplayItem.setOnAction(e -> openReplay());
+        fileMenu.getItems().addAll(saveItem, loadItem, saveReplayItem, openReplayItem);
+
+        // Edit menu
+        Menu editMenu = new Menu("Edit");
+        MenuItem undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Z"));
+        undoItem.setOnAction(e -> {
+            if (currentGame != null) {
+                currentGame.undo();
+            }
+        });
+        MenuItem redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(KeyCombination.keyCombination("Shortcut+Y"));
+        redoItem.setOnAction(e -> {
+            if (currentGame != null) {
+                currentGame.redo();
+            }
+        });
+        editMenu.getItems().addAll(undoItem, redoItem);
+
         // Exit menu
         Menu exitMenu = new Menu("Exit");
         MenuItem exitItem = new MenuItem("Exit");
@@ -40,7 +85,15 @@ public class SceneManager {
         restartItem.setOnAction(e -> restartGame());
         restartMenu.getItems().add(restartItem);
 
-        menuBar.getMenus().addAll(exitMenu, restartMenu);
+        // Board code menu
+        Menu boardMenu = new Menu("Board");
+        MenuItem playCodeItem = new MenuItem("Play Board Code...");
+        playCodeItem.setOnAction(e -> askBoardCode());
+        MenuItem copyCodeItem = new MenuItem("Copy Board Code");
+        copyCodeItem.setOnAction(e -> copyBoardCode());
+        boardMenu.getItems().addAll(playCodeItem, copyCodeItem);
+
+        menuBar.getMenus().addAll(fileMenu, editMenu, exitMenu, restartMenu, boardMenu);
         return menuBar;
     }
 
@@ -48,6 +101,126 @@ public class SceneManager {
         showMenu();
     }
 
+    /**
+     * Ask the player for a board code and start that board
+     * Shows an alert if the code can not be read
+     */
+    private void askBoardCode() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Play Board Code");
+        dialog.setHeaderText("Enter a board code to play that exact board");
+        dialog.showAndWait().ifPresent(code -> {
+            try {
+                showGame(BoardCode.parse(code));
+            } catch (IllegalArgumentException ex) {
+                showError("Invalid Board Code", ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Copy the code of the current board to the clipboard
+     */
+    private void copyBoardCode() {
+        BoardCode code = currentGame == null ? null : currentGame.getBoardCode();
+        if (code == null) {
+            showError("No Board", "Start a game first, the board is made on the first click.");
+            return;
+        }
+        ClipboardContent content = new ClipboardContent();
+        content.putString(code.toString());
+        Clipboard.getSystemClipboard().setContent(content);
+    }
+
+    /**
+     * Ask where to save the current game and write it there
+     */
+    private void saveGame() {
+        if (currentGame == null) {
+            showError("No Game", "Start a game first.");
+            return;
+        }
+        GameSnapshot snapshot = currentGame.getSnapshot(); // taken now, not after the dialog
+        File file = createSaveChooser().showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        try {
+            snapshot.save(file.toPath());
+        } catch (IOException ex) {
+            showError("Save Failed", ex.getMessage());
+        }
+    }
+
+    /**
+     * Ask for a saved game and carry on playing it
+     */
+    private void loadGame() {
+        File file = createSaveChooser().showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        try {
+            showGame(GameSnapshot.load(file.toPath()));
+        } catch (IOException | IllegalArgumentException ex) {
+            showError("Load Failed", ex.getMessage());
+        }
+    }
+
+    /**
+     * Ask where to save the moves of the current game and write them there
+     */
+    private void saveReplay() {
+        ReplayLog log = currentGame == null ? null : currentGame.getReplayLog();
+        if (log == null) {
+            showError("No Replay", "Moves are recorded from the first click of a new game, loaded games are not recorded.");
+            return;
+        }
+        File file = createReplayChooser().showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+        try {
+            log.save(file.toPath());
+        } catch (IOException ex) {
+            showError("Save Failed", ex.getMessage());
+        }
+    }
+
+    /**
+     * Ask for a replay file and play it back
+     */
+    private void openReplay() {
+        File file = createReplayChooser().showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+        try {
+            showReplay(ReplayLog.load(file.toPath()));
+        } catch (IOException | IllegalArgumentException ex) {
+            showError("Open Failed", ex.getMessage());
+        }
+    }
+
+    private FileChooser createSaveChooser() {
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Saved games", "*.mines"));
+        return chooser;
+    }
+
+    private FileChooser createReplayChooser() {
+        FileChooser chooser = new FileChooser();
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Replays", "*.replay"));
+        return chooser;
+    }
+
+    private void showError(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(message);
+        alert.showAndWait();
+    }
+
 
     /**
      * Show the main menu view in the center of the root
@@ -55,6 +228,7 @@ public class SceneManager {
      */
     public void showMenu() {
         MenuView menu = new MenuView(this);
+        currentGame = null;
         root.setCenter(menu.getView());
     }
 
@@ -64,9 +238,42 @@ public class SceneManager {
      * @param rows Number of rows for the game grid
      * @param cols Number of columns for the game grid
      * @param mines Number of mines for the game
+     * @param noGuess true to only deal boards that can be solved without guessing
      */
-    public void showGame(int rows, int cols, int mines) {
-        GameView game = new GameView(this, rows, cols, mines);
+    public void showGame(int rows, int cols, int mines, boolean noGuess) {
+        GameView game = new GameView(this, rows, cols, mines, noGuess);
+        currentGame = game;
         root.setCenter(game.getView());
     }
+
+    /**
+     * Show the game view for a shared board code
+     * The board is started straight away on the code's starting cell
+     * @param boardCode board to play
+     */
+    public void showGame(BoardCode boardCode) {
+        GameView game = new GameView(this, boardCode);
+        root.setCenter(game.getView());
+        currentGame = game;
+    }
+
+    /**
+     * Show the game view for a saved game
+     * @param snapshot saved game to carry on
+     */
+    public void showGame(GameSnapshot snapshot) {
+        GameView game = new GameView(this, snapshot);
+        root.setCenter(game.getView());
+        currentGame = game;
+    }
+
+    /**
+     * Show the replay view for a recorded game
+     * @param log recorded moves to play back
+     */
+    public void showReplay(ReplayLog log) {
+        ReplayView replay = new ReplayView(log);
+        currentGame = null;
+        root.setCenter(replay.getView());
+    }
 }
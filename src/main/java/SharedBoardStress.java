@@ -0,0 +1,141 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress run for SharedMineSweeper: many players make moves on one large board at once, while a
+ * listener rebuilds the board from the change stream alone. At the end the rebuilt board, the
+ * flag count and the sequence numbers are checked against the real game.
+ * Players know where the mines are, so games last long enough to make plenty of flood fills,
+ * and flag and unflag mines now and then so the flag counter is exercised too.
+ */
+public class SharedBoardStress {
+
+    /**
+     * Command line entry, reached with Main --stress.
+     * Options: --rows R, --cols C, --mines M, --players N, --moves N (per player), --seed S
+     * @param args options as above
+     */
+    public static void main(String[] args) {
+        int rows = 1000;
+        int cols = 1000;
+        int mines = 100_000;
+        int players = 64;
+        int moves = 20_000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> rows = Integer.parseInt(value);
+                case "--cols" -> cols = Integer.parseInt(value);
+                case "--mines" -> mines = Integer.parseInt(value);
+                case "--players" -> players = Integer.parseInt(value);
+                case "--moves" -> moves = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        System.out.printf("%d players, %d moves each, on %dx%d with %d mines%n", players, moves, rows, cols, mines);
+        boolean ok = run(rows, cols, mines, players, moves, seed);
+        System.out.println(ok ? "Stress run passed" : "Stress run FAILED");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the stress test once.
+     * @return true if the change stream matched the game
+     */
+    static boolean run(int rows, int cols, int mines, int players, int moves, long seed) {
+        int size = rows * cols;
+        byte[] rebuilt = new byte[size]; // only touched by the listener, which runs on the writer thread
+        long[] expectedSequence = { 1 };
+        AtomicLong outOfOrder = new AtomicLong();
+        AtomicLong events = new AtomicLong();
+        try (SharedMineSweeper shared = new SharedMineSweeper(new MineSweeper(rows, cols, mines, seed))) {
+            shared.addListener(event -> {
+                if (event.getSequence() != expectedSequence[0]++) {
+                    outOfOrder.incrementAndGet();
+                }
+                for (int i = 0; i < event.getChangeCount(); i++) {
+                    rebuilt[event.getChangedIndex(i)] = (byte) event.getChangedCell(i);
+                }
+                events.incrementAndGet();
+            });
+            shared.reveal(0, rows / 2, cols / 2).join();
+            long[] mineBits = shared.read(game -> game.toSnapshot(0).getMines()).join();
+
+            long start = System.nanoTime();
+            SplittableRandom master = new SplittableRandom(seed);
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int p = 1; p <= players; p++) {
+                    int player = p;
+                    SplittableRandom random = master.split();
+                    pool.execute(() -> play(shared, player, random, mineBits, moves, rows, cols));
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // compare the rebuilt board with the real one, read between moves on the writer thread
+            long mismatches = shared.read(game -> {
+                long wrong = 0;
+                for (int i = 0; i < size; i++) {
+                    int row = i / cols;
+                    int col = i % cols;
+                    MineSweeperMessages real = game.getNode(row, col);
+                    if (real == MineSweeperMessages.BOMB_AND_HIDDEN) {
+                        real = MineSweeperMessages.EMPTY_NODE; // players never see a hidden mine
+                    }
+                    MineSweeperMessages seen = MineSweeper.stateOf(rebuilt[i]);
+                    if (real != seen || (real == MineSweeperMessages.REVEALED_NODE
+                            && game.howManyBombsNearbyTile(row, col) != (rebuilt[i] & MineGrid.COUNT_MASK))) {
+                        wrong++;
+                    }
+                }
+                return wrong;
+            }).join();
+            int flags = 0;
+            for (byte cell : rebuilt) {
+                if ((cell & MineGrid.FLAGGED_BIT) != 0) {
+                    flags++;
+                }
+            }
+            int flagsInGame = mines - shared.getMinesLeft();
+            System.out.printf("%d moves in %.2f s (%.0f moves/s), status %s%n", events.get(), seconds,
+                    events.get() / seconds, shared.getStatus());
+            System.out.printf("out of order events %d, mismatched cells %d, flags rebuilt %d vs game %d, last sequence %d%n",
+                    outOfOrder.get(), mismatches, flags, flagsInGame, shared.getLastSequence());
+            return outOfOrder.get() == 0 && mismatches == 0 && flags == flagsInGame
+                    && shared.getLastSequence() == events.get();
+        }
+    }
+
+    /**
+     * One player: reveals random safe cells and sometimes toggles a flag on a mine, until out of
+     * moves or the game has ended.
+     */
+    private static void play(SharedMineSweeper shared, int player, SplittableRandom random, long[] mineBits,
+            int moves, int rows, int cols) {
+        try {
+            for (int m = 0; m < moves; m++) {
+                int index = random.nextInt(rows * cols);
+                boolean mine = GameSnapshot.isSet(mineBits, index);
+                if (mine && random.nextInt(4) != 0) {
+                    continue; // mostly leave mines alone, like a real player would
+                }
+                if (mine) {
+                    shared.flag(player, index / cols, index % cols).join();
+                } else {
+                    shared.reveal(player, index / cols, index % cols).join();
+                }
+            }
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof IllegalStateException)) {
+                throw e; // only the game ending stops a player early
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One board shared by many players on many threads, for cooperative games.
+ * MineSweeper itself is not thread safe, so every move is queued and applied by a single writer
+ * thread that owns the game. A flood fill therefore never interleaves with another move however
+ * far it spreads, and the flag count and game status always change together with the cells.
+ * Each applied move gets the next sequence number and its ChangeEvent is handed to every listener
+ * on the writer thread in that order, so all participants see the same totally ordered stream.
+ * The first reveal starts the game. Moves after the game has ended are refused.
+ */
+public class SharedMineSweeper implements AutoCloseable {
+    private static final int DRAIN_BATCH = 256; // commands taken off the queue per wake-up
+    private static final Runnable STOP = () -> { }; // queued by close, ends the writer loop
+
+    private final MineSweeper game; // only touched by the writer thread
+    private final int rows;
+    private final int cols;
+    private final BlockingQueue<Runnable> commands = new LinkedBlockingQueue<>();
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private volatile MineSweeperMessages status = MineSweeperMessages.GAME_ONGOING;
+    private volatile int minesLeft;
+    private volatile long lastSequence; // sequence of the last applied move, 0 before any
+    private boolean started; // writer thread only
+
+    /**
+     * Constructor for SharedMineSweeper, starts the writer thread.
+     * @param game a game that has not been started, owned by this object from now on
+     */
+    public SharedMineSweeper(MineSweeper game) {
+        if (game.isStarted()) {
+            throw new IllegalArgumentException("The shared game must not be started yet");
+        }
+        this.game = game;
+        this.rows = game.getRows();
+        this.cols = game.getCols();
+        this.minesLeft = game.getNumberOfMinesLeft();
+        writer = new Thread(this::runWriter, "shared-board-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * A move that was applied, with every cell it changed.
+     */
+    public static class ChangeEvent {
+        private final long sequence;
+        private final int player;
+        private final boolean flag;
+        private final int row;
+        private final int col;
+        private final MineSweeperMessages result;
+        private final int[] indices;
+        private final byte[] cells;
+        private final MineSweeperMessages status;
+        private final int minesLeft;
+
+        ChangeEvent(long sequence, int player, boolean flag, int row, int col, MineSweeperMessages result,
+                CellChanges changes, MineSweeperMessages status, int minesLeft) {
+            this.sequence = sequence;
+            this.player = player;
+            this.flag = flag;
+            this.row = row;
+            this.col = col;
+            this.result = result;
+            this.indices = new int[changes.size()];
+            this.cells = new byte[changes.size()];
+            for (int i = 0; i < indices.length; i++) {
+                int cell = changes.getCell(i);
+                indices[i] = changes.getIndex(i);
+                // a hidden cell only shows its flag, its mine bit and count would give it away
+                cells[i] = (byte) ((cell & MineGrid.REVEALED_BIT) != 0 ? cell : cell & MineGrid.FLAGGED_BIT);
+            }
+            this.status = status;
+            this.minesLeft = minesLeft;
+        }
+
+        /**
+         * Gets the position of this move in the stream, 1 for the first move.
+         * @return sequence number, one more than the previous event's
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getPlayer() {
+            return player;
+        }
+
+        public boolean isFlag() {
+            return flag;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public int getCol() {
+            return col;
+        }
+
+        public MineSweeperMessages getResult() {
+            return result;
+        }
+
+        public int getChangeCount() {
+            return indices.length;
+        }
+
+        public int getChangedIndex(int i) {
+            return indices[i];
+        }
+
+        /**
+         * Gets the new packed cell byte of a changed cell. Hidden cells only carry the flag bit.
+         * @param i position in the list of changes
+         * @return packed cell, see MineGrid for the layout
+         */
+        public int getChangedCell(int i) {
+            return cells[i];
+        }
+
+        /**
+         * Gets the game status right after this move.
+         * @return GAME_ONGOING, GAME_OVER or GAME_WON
+         */
+        public MineSweeperMessages getStatus() {
+            return status;
+        }
+
+        public int getMinesLeft() {
+            return minesLeft;
+        }
+    }
+
+    /**
+     * Listens to every applied move, in sequence order, on the writer thread.
+     * Listeners should be quick, e.g. hand the event to their own queue. A listener that throws is removed.
+     * @param listener listener to add
+     */
+    public void addListener(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<ChangeEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Queues a reveal. The first reveal of the game starts it on that cell.
+     * @param player id of the player making the move, passed on in the event
+     * @param row row
+     * @param col column
+     * @return completes with the move's event once applied, or fails with IllegalStateException if the game is over
+     */
+    public CompletableFuture<ChangeEvent> reveal(int player, int row, int col) {
+        return submitMove(player, false, row, col);
+    }
+
+    /**
+     * Queues a flag toggle. Flags can only be placed once the game has been started.
+     * @param player id of the player making the move, passed on in the event
+     * @param row row
+     * @param col column
+     * @return completes with the move's event once applied, or fails with IllegalStateException if the
+     *         game is over or not started
+     */
+    public CompletableFuture<ChangeEvent> flag(int player, int row, int col) {
+        return submitMove(player, true, row, col);
+    }
+
+    /**
+     * Runs a read-only function on the game between two moves, so it sees a consistent board.
+     * The function must not make moves or keep the game.
+     * @param reader function to run on the writer thread
+     * @param <T> type of the answer
+     * @return completes with the answer
+     */
+    public <T> CompletableFuture<T> read(Function<MineSweeper, T> reader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        submit(() -> future.complete(reader.apply(game)), future);
+        return future;
+    }
+
+    private CompletableFuture<ChangeEvent> submitMove(int player, boolean flag, int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) { // checked on the caller's thread
+            throw new IllegalArgumentException("Coordinates out of bounds");
+        }
+        CompletableFuture<ChangeEvent> future = new CompletableFuture<>();
+        submit(() -> apply(player, flag, row, col, future), future);
+        return future;
+    }
+
+    private void submit(Runnable command, CompletableFuture<?> future) {
+        Runnable guarded = () -> {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        };
+        synchronized (commands) { // orders every submit against close, so no move is queued after STOP
+            if (closed) {
+                throw new IllegalStateException("Shared game is closed");
+            }
+            commands.add(guarded);
+        }
+    }
+
+    /**
+     * Applies one move on the writer thread and publishes its event.
+     */
+    private void apply(int player, boolean flag, int row, int col, CompletableFuture<ChangeEvent> future) {
+        if (game.getGameStatus() != MineSweeperMessages.GAME_ONGOING) {
+            throw new IllegalStateException("Game is over");
+        }
+        MineSweeperMessages result;
+        if (flag) {
+            if (!started) {
+                throw new IllegalStateException("Reveal a cell to start the game first");
+            }
+            result = game.flagNode(row, col);
+        } else if (!started) {
+            game.startGame(row, col);
+            started = true;
+            result = MineSweeperMessages.NODE_NOW_REVEALED;
+        } else {
+            result = game.revealNode(row, col);
+        }
+        minesLeft = game.getNumberOfMinesLeft();
+        status = game.getGameStatus();
+        ChangeEvent event = new ChangeEvent(lastSequence + 1, player, flag, row, col, result,
+                game.getLastChanges(), status, minesLeft);
+        lastSequence = event.getSequence();
+        for (Consumer<ChangeEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                listeners.remove(listener);
+            }
+        }
+        future.complete(event);
+    }
+
+    /**
+     * Writer loop, takes commands in batches so a busy board wakes the thread once per batch.
+     */
+    private void runWriter() {
+        List<Runnable> batch = new ArrayList<>(DRAIN_BATCH);
+        while (true) {
+            try {
+                batch.add(commands.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            commands.drainTo(batch, DRAIN_BATCH - 1);
+            for (Runnable command : batch) {
+                if (command == STOP) {
+                    return; // nothing can be queued after STOP, see submit
+                }
+                command.run();
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Refuses new moves, applies the ones already queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (commands) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            commands.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the game status as of the last applied move.
+     * @return GAME_ONGOING, GAME_OVER or GAME_WON
+     */
+    public MineSweeperMessages getStatus() {
+        return status;
+    }
+
+    public int getMinesLeft() {
+        return minesLeft;
+    }
+
+    /**
+     * Gets the sequence number of the last applied move.
+     * @return last sequence number, 0 before the first move
+     */
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+}
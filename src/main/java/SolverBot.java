@@ -0,0 +1,67 @@
+import java.util.SplittableRandom;
+
+/**
+ * Bot that plays with MineSweeperSolver and only guesses when logic runs out.
+ * Guesses either go to the cell MineProbabilityCalculator rates least likely to be a mine,
+ * or to a random hidden cell, which is much faster and shows what the probabilities are worth.
+ */
+public class SolverBot implements BotStrategy {
+    private final boolean useProbabilities;
+    private final MineProbabilityCalculator calculator;
+    private MineSweeperSolver solver; // made on the first game and reused after that
+
+    /**
+     * Constructor for SolverBot.
+     * @param useProbabilities true to guess the safest cell, false to guess a random hidden cell
+     */
+    public SolverBot(boolean useProbabilities) {
+        this.useProbabilities = useProbabilities;
+        this.calculator = useProbabilities ? new MineProbabilityCalculator() : null;
+    }
+
+    @Override
+    public String getName() {
+        return useProbabilities ? "solver" : "solver-random-guess";
+    }
+
+    @Override
+    public void play(MineSweeper game, SplittableRandom random, BotMoveCounter counter) {
+        if (solver == null) {
+            solver = new MineSweeperSolver(game);
+        } else {
+            solver.reset(game);
+        }
+        while (solver.solve() == MineSweeperMessages.GAME_ONGOING) {
+            int cell = useProbabilities ? safestCell(game) : randomHiddenCell(game, random);
+            if (cell < 0) {
+                counter.countMoves(1); // the calculator proved this cell safe, the solver's rules just missed it
+                cell = -cell - 1;
+            } else {
+                counter.countGuess();
+            }
+            if (solver.reveal(cell / game.getCols(), cell % game.getCols()) == MineSweeperMessages.BOMB_NODE) {
+                break;
+            }
+        }
+        counter.countMoves(solver.getSafeReveals() + solver.getFlagsPlaced());
+    }
+
+    /**
+     * Picks the cell least likely to be a mine.
+     * @return its index, or -index - 1 if it is certainly safe
+     */
+    private int safestCell(MineSweeper game) {
+        double[] probabilities = calculator.calculate(game);
+        int cell = MineProbabilityCalculator.safestCell(game, probabilities);
+        return probabilities[cell] == 0 ? -cell - 1 : cell;
+    }
+
+    private int randomHiddenCell(MineSweeper game, SplittableRandom random) {
+        int size = game.getRows() * game.getCols();
+        int cell;
+        do {
+            cell = random.nextInt(size);
+        } while (!solver.isHidden(cell / game.getCols(), cell % game.getCols()));
+        return cell;
+    }
+}
@@ -0,0 +1,251 @@
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Draws the text frontend's board with ANSI escape codes.
+ * The first frame is built in one buffer and written with a single write. After that only the
+ * cells that changed since the last frame are sent, each as a cursor move plus its symbol, so a
+ * move costs output in proportion to what it changed instead of the whole board.
+ * Boards bigger than the terminal are shown through a viewport that can be scrolled.
+ * Columns are labelled A to Z, then AA, AB and so on, rows are numbered from 1.
+ * Prompts and messages go below the board, in the lines left free by the viewport.
+ */
+public class TerminalRenderer {
+    // lines kept under the board for the view line, messages and prompts
+    private static final int RESERVED_LINES = 7;
+    private static final String ESC = "\033[";
+
+    private final int rows;
+    private final int cols;
+    private final PrintStream out;
+    private final char[] symbols; // what each cell should show
+    private final char[] shown; // what the terminal shows for each cell in the viewport, 0 if unknown
+    private final int rowLabelWidth;
+    private final int cellWidth;
+    private final int viewRows;
+    private final int viewCols;
+    private int topRow;
+    private int leftCol;
+    private int[] dirty = new int[64]; // cells changed since the last frame
+    private int dirtyCount;
+    private boolean fullFrame = true; // next frame redraws everything
+
+    /**
+     * Constructor for TerminalRenderer, sized from the LINES and COLUMNS environment variables or 24x80.
+     * @param rows rows of the board
+     * @param cols columns of the board
+     * @param out stream to draw on, e.g. System.out
+     */
+    public TerminalRenderer(int rows, int cols, PrintStream out) {
+        this(rows, cols, envInt("LINES", 24), envInt("COLUMNS", 80), out);
+    }
+
+    /**
+     * Constructor for TerminalRenderer with a known terminal size.
+     * @param rows rows of the board
+     * @param cols columns of the board
+     * @param terminalLines height of the terminal in lines
+     * @param terminalColumns width of the terminal in characters
+     * @param out stream to draw on
+     */
+    public TerminalRenderer(int rows, int cols, int terminalLines, int terminalColumns, PrintStream out) {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("Board must have at least one row and column");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.out = out;
+        symbols = new char[rows * cols];
+        Arrays.fill(symbols, '.');
+        rowLabelWidth = Integer.toString(rows).length();
+        cellWidth = Math.max(3, columnLabel(cols - 1).length() + 1);
+        viewRows = Math.min(rows, Math.max(1, terminalLines - 1 - RESERVED_LINES));
+        viewCols = Math.min(cols, Math.max(1, (terminalColumns - rowLabelWidth - 2) / cellWidth));
+        shown = new char[viewRows * viewCols];
+    }
+
+    private static int envInt(String name, int fallback) {
+        try {
+            return Integer.parseInt(System.getenv().getOrDefault(name, "").trim());
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Makes the label of a column: A to Z, then AA to AZ, BA and so on (bijective base 26).
+     * @param col column index from 0
+     * @return label of the column
+     */
+    public static String columnLabel(int col) {
+        if (col < 0) {
+            throw new IllegalArgumentException("Column must not be negative");
+        }
+        char[] letters = new char[7]; // enough for any int
+        int start = letters.length;
+        for (int n = col + 1; n > 0; n = (n - 1) / 26) {
+            letters[--start] = (char) ('A' + (n - 1) % 26);
+        }
+        return new String(letters, start, letters.length - start);
+    }
+
+    /**
+     * Reads a column label made by columnLabel.
+     * @param text text holding the label
+     * @param start index of the first letter
+     * @param end index after the last letter
+     * @return column index from 0, or -1 if the label is too long to be a column
+     */
+    public static int parseColumnLabel(CharSequence text, int start, int end) {
+        long col = 0;
+        for (int i = start; i < end; i++) {
+            char letter = text.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                throw new IllegalArgumentException("Column letters must be between A and Z");
+            }
+            col = col * 26 + (letter - 'A' + 1);
+            if (col > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) col - 1;
+    }
+
+    /**
+     * Sets what a cell shows. It is sent on the next render if it is in view.
+     * @param index row-major index of the cell
+     * @param symbol character to show
+     */
+    public void setCell(int index, char symbol) {
+        if (symbols[index] == symbol) {
+            return;
+        }
+        symbols[index] = symbol;
+        if (fullFrame) {
+            return; // everything is drawn anyway
+        }
+        if (dirtyCount == dirty.length) {
+            if (dirtyCount >= shown.length) {
+                fullFrame = true; // more changes than cells in view, a full frame is cheaper
+                return;
+            }
+            dirty = Arrays.copyOf(dirty, dirty.length * 2);
+        }
+        dirty[dirtyCount++] = index;
+    }
+
+    /**
+     * Moves the viewport so the given cell is its top left corner, as far as the board allows.
+     * @param row top row
+     * @param col left column
+     */
+    public void scrollTo(int row, int col) {
+        int newTop = Math.max(0, Math.min(row, rows - viewRows));
+        int newLeft = Math.max(0, Math.min(col, cols - viewCols));
+        if (newTop != topRow || newLeft != leftCol) {
+            topRow = newTop;
+            leftCol = newLeft;
+            fullFrame = true;
+        }
+    }
+
+    /**
+     * Scrolls the least needed to bring a cell into view, centring it if it was far off.
+     * @param row row of the cell
+     * @param col column of the cell
+     */
+    public void ensureVisible(int row, int col) {
+        int top = row >= topRow && row < topRow + viewRows ? topRow : row - viewRows / 2;
+        int left = col >= leftCol && col < leftCol + viewCols ? leftCol : col - viewCols / 2;
+        scrollTo(top, left);
+    }
+
+    /**
+     * Makes the next render draw the whole screen again, e.g. after text scrolled it.
+     */
+    public void invalidate() {
+        fullFrame = true;
+    }
+
+    /**
+     * Draws the board and leaves the cursor on a cleared line below it, ready for prompts.
+     */
+    public void render() {
+        StringBuilder frame = new StringBuilder();
+        if (fullFrame) {
+            appendFullFrame(frame);
+        } else {
+            appendChanges(frame);
+        }
+        fullFrame = false;
+        dirtyCount = 0;
+        frame.append(ESC).append(viewRows + 3).append(";1H").append(ESC).append('J'); // prompts go under the view line
+        byte[] bytes = frame.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length); // System.out passes big writes straight through, so the frame goes out in one write
+        out.flush();
+    }
+
+    private void appendFullFrame(StringBuilder frame) {
+        frame.ensureCapacity((viewRows + 2) * (rowLabelWidth + 3 + viewCols * cellWidth) + 32);
+        frame.append(ESC).append('H').append(ESC).append("2J");
+        pad(frame, rowLabelWidth + 2);
+        for (int col = leftCol; col < leftCol + viewCols; col++) {
+            String label = columnLabel(col);
+            pad(frame, cellWidth - label.length());
+            frame.append(label);
+        }
+        frame.append('\n');
+        for (int row = topRow; row < topRow + viewRows; row++) {
+            String label = Integer.toString(row + 1);
+            pad(frame, rowLabelWidth - label.length());
+            frame.append(label).append(" |");
+            for (int col = leftCol; col < leftCol + viewCols; col++) {
+                char symbol = symbols[row * cols + col];
+                pad(frame, cellWidth - 1);
+                frame.append(symbol);
+                shown[(row - topRow) * viewCols + col - leftCol] = symbol;
+            }
+            frame.append('\n');
+        }
+        if (viewRows < rows || viewCols < cols) {
+            frame.append("Rows ").append(topRow + 1).append('-').append(topRow + viewRows).append(" of ").append(rows)
+                    .append(", columns ").append(columnLabel(leftCol)).append('-')
+                    .append(columnLabel(leftCol + viewCols - 1)).append(" of ").append(columnLabel(cols - 1))
+                    .append(". Use V to move the view.");
+        }
+    }
+
+    private void appendChanges(StringBuilder frame) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int index = dirty[i];
+            int row = index / cols - topRow;
+            int col = index % cols - leftCol;
+            if (row < 0 || row >= viewRows || col < 0 || col >= viewCols) {
+                continue;
+            }
+            char symbol = symbols[index];
+            if (shown[row * viewCols + col] == symbol) {
+                continue; // changed back, or listed twice
+            }
+            shown[row * viewCols + col] = symbol;
+            // rows start on line 2 under the header, the symbol is the last character of its cell
+            frame.append(ESC).append(row + 2).append(';').append(rowLabelWidth + 2 + (col + 1) * cellWidth)
+                    .append('H').append(symbol);
+        }
+    }
+
+    private static void pad(StringBuilder frame, int spaces) {
+        for (int i = 0; i < spaces; i++) {
+            frame.append(' ');
+        }
+    }
+
+    public int getViewRows() {
+        return viewRows;
+    }
+
+    public int getViewCols() {
+        return viewCols;
+    }
+}